@@ -1,6 +1,11 @@
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.Queue;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.StreamSupport;
 
 /**
  * a symbol table implemented with ordered array and binary search algorithm
@@ -25,6 +30,13 @@ public class BinarySearchST<Key extends Comparable<Key>, Value> {
         n = 0;
     }
 
+    // builds the table from parallel arrays of keys and values in O(N log N),
+    // a key that occurs more than once gets its last value
+    public BinarySearchST(Key[] keys, Value[] values) {
+        this(INIT_SIZE);
+        putAll(keys, values);
+    }
+
     // resize keys and values arr to newSize
     private void resize(int newSize) {
         assert newSize >= n;
@@ -87,6 +99,82 @@ public class BinarySearchST<Key extends Comparable<Key>, Value> {
         assert check();
     }
 
+    // a key value pair of a batch given to putAll()
+    private static final class Entry<Key, Value> {
+        private final Key key;
+        private final Value val;
+
+        Entry(Key key, Value val) {
+            this.key = key;
+            this.val = val;
+        }
+    }
+
+    // puts all key value pairs into table, as if put() was called for each
+    // pair in order, but in O(N log N + M) instead of O(N * (N + M)) for a
+    // batch of N pairs and a table of M keys: the batch is sorted (in
+    // parallel when it is large), duplicate keys keep their last value and
+    // the sorted batch is merged into the arrays in one pass from the back
+    public void putAll(Key[] keys, Value[] values) {
+        if (keys == null || values == null) {
+            throw new IllegalArgumentException("The arrays are null!");
+        }
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("keys and values differ in length!");
+        }
+        @SuppressWarnings("unchecked")
+        Entry<Key, Value>[] batch = (Entry<Key, Value>[]) new Entry<?, ?>[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            checkKeyNotNull(keys[i]);
+            batch[i] = new Entry<>(keys[i], values[i]);
+        }
+        // the sort is stable, so equal keys stay in input order
+        Arrays.parallelSort(batch, Comparator.comparing((Entry<Key, Value> e) -> e.key));
+
+        // drop all but the last pair of each key
+        int m = 0;
+        for (int i = 0; i < batch.length; i++) {
+            if (i + 1 < batch.length && batch[i].key.compareTo(batch[i + 1].key) == 0) continue;
+            batch[m++] = batch[i];
+        }
+
+        // count the keys already in the table to know the merged size
+        int common = 0;
+        for (int i = 0, j = 0; i < n && j < m; ) {
+            int cmp = this.keys[i].compareTo(batch[j].key);
+            if (cmp < 0) {
+                i++;
+            } else if (cmp > 0) {
+                j++;
+            } else {
+                common++;
+                i++;
+                j++;
+            }
+        }
+        int size = n + m - common;
+        if (size > this.keys.length) resize(Math.max(size, this.keys.length * 2));
+
+        // merge from the back, the write position never passes an unread key
+        int i = n - 1;
+        int j = m - 1;
+        for (int w = size - 1; j >= 0; w--) {
+            int cmp = i >= 0 ? this.keys[i].compareTo(batch[j].key) : -1;
+            if (cmp > 0) {
+                this.keys[w] = this.keys[i];
+                this.values[w] = this.values[i];
+                i--;
+            } else {
+                this.keys[w] = batch[j].key;
+                this.values[w] = batch[j].val;
+                j--;
+                if (cmp == 0) i--;
+            }
+        }
+        n = size;
+        assert check();
+    }
+
     // returns value associated with key or null
     public Value get(Key key) {
         checkKeyNotNull(key);
@@ -140,7 +228,7 @@ public class BinarySearchST<Key extends Comparable<Key>, Value> {
     public Key floor(Key key) {
         checkKeyNotNull(key);
         int rank = rank(key);
-        if (rank < n && keys[rank] == key) return keys[rank];
+        if (rank < n && keys[rank].compareTo(key) == 0) return keys[rank];
         return rank == 0 ? null : keys[rank - 1];
     }
 
@@ -198,23 +286,66 @@ public class BinarySearchST<Key extends Comparable<Key>, Value> {
         return rank(hi) - rank(lo) + (contains(hi) ? 1 : 0);
     }
 
+    // returns a read-only copy of the table laid out for faster searches,
+    // see EytzingerST
+    public EytzingerST<Key, Value> freeze() {
+        return new EytzingerST<>(keys, values, n);
+    }
+
+    // returns the keys in [lo, hi] in sorted order
+    // the result is a view of the keys array, not a copy, so the table must
+    // not be modified while it is iterated
     public Iterable<Key> keys(Key lo, Key hi) {
         checkKeyNotNull(lo);
         checkKeyNotNull(hi);
         if (lo.compareTo(hi) > 0) {
             throw new IllegalArgumentException("lo is greater than hi!");
         }
-        int start = rank(ceiling(lo));
-        int end = rank(floor(hi));
-        Queue<Key> q = new LinkedList<>();
-        for (int i = start; i <= end; i++) {
-            q.offer(keys[i]);
-        }
-        return q;
+        int start = rank(lo);
+        int end = rank(hi);
+        if (end < n && keys[end].compareTo(hi) == 0) end++;
+        return new KeyRange(start, end);
     }
 
+    // returns all keys in sorted order, a view like keys(lo, hi)
     public Iterable<Key> keys() {
-        return keys(keys[0], keys[n - 1]);
+        return new KeyRange(0, n);
+    }
+
+    // the keys with index in [start, end)
+    private class KeyRange implements Iterable<Key> {
+        private final int start;
+        private final int end;
+
+        KeyRange(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Iterator<Key> iterator() {
+            return new Iterator<Key>() {
+                private int i = start;
+
+                @Override
+                public boolean hasNext() {
+                    return i < end;
+                }
+
+                @Override
+                public Key next() {
+                    if (i >= end) throw new NoSuchElementException();
+                    return keys[i++];
+                }
+            };
+        }
+
+        // splits by index, so range scans can feed parallel streams
+        @Override
+        public Spliterator<Key> spliterator() {
+            return Spliterators.spliterator(keys, start, end,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        }
     }
 
     // print key-value pairs in the table
@@ -252,5 +383,34 @@ public class BinarySearchST<Key extends Comparable<Key>, Value> {
             System.out.println(k + " " + st.get(k));
         }
         System.out.println();
+
+        st.putAll(new String[] {"key4", "key1", "key4"}, new Double[] {2.00, 3.00, 3.67});
+        st.print();
+
+        // bulk load compared to the same pairs put one by one
+        int n = 50_000;
+        Integer[] keys = new Integer[n];
+        Integer[] values = new Integer[n];
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextInt();
+            values[i] = i;
+        }
+        long start = System.nanoTime();
+        BinarySearchST<Integer, Integer> bulk = new BinarySearchST<>(keys, values);
+        System.out.printf("bulk load of %d pairs: %.3f s%n", n, (System.nanoTime() - start) / 1e9);
+        start = System.nanoTime();
+        BinarySearchST<Integer, Integer> single = new BinarySearchST<>();
+        for (int i = 0; i < n; i++) {
+            single.put(keys[i], values[i]);
+        }
+        System.out.printf("%d single puts: %.3f s, same size: %b%n",
+            n, (System.nanoTime() - start) / 1e9, bulk.size() == single.size());
+
+        // range scan as a parallel stream
+        long inRange = StreamSupport.stream(bulk.keys(0, Integer.MAX_VALUE).spliterator(), true)
+            .filter(k -> k % 2 == 0)
+            .count();
+        System.out.println("even non-negative keys: " + inRange);
     }
 }
@@ -0,0 +1,249 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * a read-only ordered symbol table with keys in Eytzinger (BFS) order
+ *
+ * built by BinarySearchST.freeze(). the sorted keys are laid out like an
+ * implicit complete binary search tree: the root at index 1 and the children
+ * of k at 2k and 2k + 1. the first probes of every search hit the same few
+ * cache lines at the front of the array and the two children of a node are
+ * adjacent, so a lookup misses the cache on the array far less often than a
+ * binary search, which jumps across the whole sorted array.
+ *
+ * the descent has no early exit: k = 2k + (keys[k] < key ? 1 : 0) always
+ * runs to a leaf, and the lower bound is recovered from the final k with a
+ * bit trick. over the top 16 levels, which stay in cache, the step is a
+ * select the JIT turns into a conditional move, so there is nothing to
+ * mispredict. below them every probe is a likely cache miss, and a plain
+ * branch is faster there: the cpu speculates down one side and starts the
+ * next load before the compare resolves, where a conditional move would
+ * wait for every load in turn.
+ *
+ * the sorted order is kept alongside for select(), floor() and range queries.
+ *
+ * the layout only covers the array of key references: every compare still
+ * dereferences a key object, and the objects of neighbouring keys are often
+ * neighbours in memory too, which favours the last steps of a binary search.
+ * so this table wins for small tables, whose key objects stay in cache, and
+ * loses to BinarySearchST from about a million keys on. for large tables of
+ * int keys use IntDoubleBinarySearchST.freeze() instead, which stores the
+ * keys themselves in BFS order.
+ */
+public class EytzingerST<Key extends Comparable<Key>, Value> {
+
+    // largest size for which 2k + 1 cannot overflow during the descent
+    static final int MAX_SIZE = (1 << 30) - 1;
+    // slots in the top 16 levels, the part of the tree that stays in cache
+    private static final int HOT_SLOTS = (1 << 16) - 1;
+
+    private final Key[] keys;       // keys in BFS order, 1-based
+    private final Value[] values;   // values in BFS order
+    private final int[] ranks;      // ranks[k] = rank of keys[k]
+    private final Key[] sorted;     // keys in sorted order
+    private final int n;
+    private final int hot;          // last slot of the levels searched without branches
+
+    // keys[0 .. n - 1] must be sorted and distinct
+    @SuppressWarnings("unchecked")
+    EytzingerST(Key[] keys, Value[] values, int n) {
+        if (n > MAX_SIZE) throw new IllegalArgumentException("table is too large!");
+        this.n = n;
+        this.hot = Math.min(n, HOT_SLOTS);
+        this.keys = (Key[]) new Comparable<?>[n + 1];
+        this.values = (Value[]) new Object[n + 1];
+        this.ranks = new int[n + 1];
+        this.sorted = Arrays.copyOf(keys, n);
+        layout(keys, values, 0, 1);
+    }
+
+    // fills the subtree rooted at slot k in order, starting with sorted index i,
+    // and returns the next sorted index
+    private int layout(Key[] sortedKeys, Value[] sortedValues, int i, int k) {
+        if (k > n) return i;
+        i = layout(sortedKeys, sortedValues, i, 2 * k);
+        keys[k] = sortedKeys[i];
+        values[k] = sortedValues[i];
+        ranks[k] = i;
+        return layout(sortedKeys, sortedValues, i + 1, 2 * k + 1);
+    }
+
+    // throws exception if key is null
+    private void checkKeyNotNull(Key key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The key is null!");
+        }
+    }
+
+    // returns the slot of the smallest key greater than or equal to key, 0 if none
+    private int lowerBound(Key key) {
+        // the top levels stay in cache: descend without branches
+        int k = 1;
+        while (k <= hot) {
+            k = 2 * k + (keys[k].compareTo(key) < 0 ? 1 : 0);
+        }
+        // the levels below miss the cache: with a branch the cpu speculates
+        // down one side and starts that load early, half of the time correctly
+        while (k <= n) {
+            if (keys[k].compareTo(key) < 0) {
+                k = 2 * k + 1;
+            } else {
+                k = 2 * k;
+            }
+        }
+        // k went right after the answer every time but once: drop those
+        // trailing right turns and the last left turn
+        return k >> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    // returns value associated with key or null
+    public Value get(Key key) {
+        checkKeyNotNull(key);
+        int k = lowerBound(key);
+        if (k != 0 && keys[k].compareTo(key) == 0) return values[k];
+        return null;
+    }
+
+    // returns true if contains key
+    public boolean contains(Key key) {
+        checkKeyNotNull(key);
+        int k = lowerBound(key);
+        return k != 0 && keys[k].compareTo(key) == 0;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public Key min() {
+        if (isEmpty()) throw new NoSuchElementException("table is empty!");
+        return sorted[0];
+    }
+
+    public Key max() {
+        if (isEmpty()) throw new NoSuchElementException("table is empty!");
+        return sorted[n - 1];
+    }
+
+    // returns largest key less than or equal to key
+    public Key floor(Key key) {
+        checkKeyNotNull(key);
+        int k = lowerBound(key);
+        if (k != 0 && keys[k].compareTo(key) == 0) return keys[k];
+        int rank = k == 0 ? n : ranks[k];
+        return rank == 0 ? null : sorted[rank - 1];
+    }
+
+    // returns smallest key greater than or equal to key
+    public Key ceiling(Key key) {
+        checkKeyNotNull(key);
+        int k = lowerBound(key);
+        return k == 0 ? null : keys[k];
+    }
+
+    // returns the number of elements less than key
+    public int rank(Key key) {
+        checkKeyNotNull(key);
+        int k = lowerBound(key);
+        return k == 0 ? n : ranks[k];
+    }
+
+    // returns key of rank k
+    public Key select(int k) {
+        if (k < 0 || k >= n) {
+            throw new IllegalArgumentException("rank out of bound!");
+        }
+        return sorted[k];
+    }
+
+    // returns number of keys in [lo, hi]
+    public int size(Key lo, Key hi) {
+        checkKeyNotNull(lo);
+        checkKeyNotNull(hi);
+        if (lo.compareTo(hi) > 0) {
+            throw new IllegalArgumentException("lo is greater than hi!");
+        }
+        return rank(hi) - rank(lo) + (contains(hi) ? 1 : 0);
+    }
+
+    // returns the keys in [lo, hi] in sorted order, a read-only view
+    public Iterable<Key> keys(Key lo, Key hi) {
+        int start = rank(lo);
+        return Arrays.asList(sorted).subList(start, start + size(lo, hi));
+    }
+
+    // returns all keys in sorted order, a read-only view
+    public Iterable<Key> keys() {
+        return Arrays.asList(sorted);
+    }
+
+    // times get(), floor() and ceiling() against the BinarySearchST the table was frozen from
+    public static void main(String[] args) {
+        int[] sizes = {1 << 10, 1 << 16, 1 << 20, 1 << 22};
+        int queries = 1 << 22;
+        Random random = new Random(42);
+        for (int n : sizes) {
+            Integer[] keys = new Integer[n];
+            Integer[] values = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = random.nextInt();
+                values[i] = i;
+            }
+            BinarySearchST<Integer, Integer> st = new BinarySearchST<>(keys, values);
+            EytzingerST<Integer, Integer> frozen = st.freeze();
+
+            // half of the queries hit a key, half fall between keys
+            Integer[] probes = new Integer[queries];
+            for (int i = 0; i < queries; i++) {
+                probes[i] = random.nextBoolean() ? keys[random.nextInt(n)] : random.nextInt();
+            }
+
+            System.out.printf("n = %d%n", st.size());
+            for (int round = 0; round < 3; round++) {
+                long checksum = 0;
+                long start = System.nanoTime();
+                for (Integer probe : probes) {
+                    Integer value = st.get(probe);
+                    if (value != null) checksum += value;
+                }
+                long sortedGet = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (Integer probe : probes) {
+                    Integer value = frozen.get(probe);
+                    if (value != null) checksum -= value;
+                }
+                long eytzingerGet = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (Integer probe : probes) {
+                    Integer floor = st.floor(probe);
+                    Integer ceiling = st.ceiling(probe);
+                    if (floor != null) checksum += floor;
+                    if (ceiling != null) checksum += ceiling;
+                }
+                long sortedRange = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (Integer probe : probes) {
+                    Integer floor = frozen.floor(probe);
+                    Integer ceiling = frozen.ceiling(probe);
+                    if (floor != null) checksum -= floor;
+                    if (ceiling != null) checksum -= ceiling;
+                }
+                long eytzingerRange = System.nanoTime() - start;
+
+                if (round < 2) continue;    // warm up
+                System.out.printf("  get:             binary search %6.1f ns, eytzinger %6.1f ns%n",
+                    (double) sortedGet / queries, (double) eytzingerGet / queries);
+                System.out.printf("  floor + ceiling: binary search %6.1f ns, eytzinger %6.1f ns (checksum %d)%n",
+                    (double) sortedRange / queries, (double) eytzingerRange / queries, checksum);
+            }
+        }
+    }
+}
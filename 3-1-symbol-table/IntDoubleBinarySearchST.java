@@ -0,0 +1,221 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * an ordered symbol table from int keys to double values
+ *
+ * same algorithm as BinarySearchST, but keys and values live in an int[]
+ * and a double[]: nothing is boxed, put() and get() do not allocate (except
+ * when resizing), and rank() compares primitives instead of calling
+ * compareTo() through a Comparable[].
+ *
+ * since a missing value cannot be null, get() throws for a missing key and
+ * getOrDefault() returns a given default instead.
+ */
+public class IntDoubleBinarySearchST {
+
+    private static final int INIT_SIZE = 8;
+    private int[] keys;
+    private double[] values;
+    private int n;  // n = number of elements
+
+    public IntDoubleBinarySearchST() {
+        this(INIT_SIZE);
+    }
+
+    public IntDoubleBinarySearchST(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity is negative!");
+        keys = new int[capacity];
+        values = new double[capacity];
+        n = 0;
+    }
+
+    // resize keys and values arr to newSize
+    private void resize(int newSize) {
+        assert newSize >= n;
+        keys = Arrays.copyOf(keys, newSize);
+        values = Arrays.copyOf(values, newSize);
+    }
+
+    // put key value pair into table
+    public void put(int key, double val) {
+        int ind = rank(key);
+        // if key already exists, update value
+        if (ind < n && keys[ind] == key) {
+            values[ind] = val;
+            return;
+        }
+        // move all elements greater than key one position to the right
+        if (n == keys.length) resize(Math.max(keys.length * 2, INIT_SIZE));
+        System.arraycopy(keys, ind, keys, ind + 1, n - ind);
+        System.arraycopy(values, ind, values, ind + 1, n - ind);
+        keys[ind] = key;
+        values[ind] = val;
+        n++;
+    }
+
+    // returns value associated with key, throws exception if there is none
+    public double get(int key) {
+        int ind = rank(key);
+        if (ind < n && keys[ind] == key) return values[ind];
+        throw new NoSuchElementException("key " + key + " is not in the table!");
+    }
+
+    // returns value associated with key or defaultValue
+    public double getOrDefault(int key, double defaultValue) {
+        int ind = rank(key);
+        if (ind < n && keys[ind] == key) return values[ind];
+        return defaultValue;
+    }
+
+    // deletes key and its value
+    public void delete(int key) {
+        int ind = rank(key);
+        if (ind < n && keys[ind] == key) {
+            System.arraycopy(keys, ind + 1, keys, ind, n - ind - 1);
+            System.arraycopy(values, ind + 1, values, ind, n - ind - 1);
+            n--;
+            if (n > 0 && n <= keys.length / 4) resize(keys.length / 2);
+        }
+    }
+
+    // returns true if contains key
+    public boolean contains(int key) {
+        int ind = rank(key);
+        return ind < n && keys[ind] == key;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public int min() {
+        if (isEmpty()) throw new NoSuchElementException("table is empty!");
+        return keys[0];
+    }
+
+    public int max() {
+        if (isEmpty()) throw new NoSuchElementException("table is empty!");
+        return keys[n - 1];
+    }
+
+    // returns largest key less than or equal to key
+    public int floor(int key) {
+        int rank = rank(key);
+        if (rank < n && keys[rank] == key) return key;
+        if (rank == 0) throw new NoSuchElementException("no key less than or equal to " + key);
+        return keys[rank - 1];
+    }
+
+    // returns smallest key greater than or equal to key
+    public int ceiling(int key) {
+        int rank = rank(key);
+        if (rank == n) throw new NoSuchElementException("no key greater than or equal to " + key);
+        return keys[rank];
+    }
+
+    // returns the number of elements less than key
+    public int rank(int key) {
+        int l = 0, r = n - 1;
+        while (l <= r) {
+            int m = (l + r) >>> 1;
+            int k = keys[m];
+            if (k > key) {
+                r = m - 1;
+            } else if (k < key) {
+                l = m + 1;
+            } else {
+                return m;
+            }
+        }
+        return l;
+    }
+
+    // returns key of rank k
+    public int select(int k) {
+        if (k < 0 || k >= n) {
+            throw new IllegalArgumentException("rank out of bound!");
+        }
+        return keys[k];
+    }
+
+    // deletes smallest key
+    public void deleteMin() {
+        if (isEmpty()) throw new NoSuchElementException("table is empty!");
+        delete(min());
+    }
+
+    // deletes largest key
+    public void deleteMax() {
+        if (isEmpty()) throw new NoSuchElementException("table is empty!");
+        delete(max());
+    }
+
+    // returns number of keys in [lo, hi]
+    public int size(int lo, int hi) {
+        if (lo > hi) {
+            throw new IllegalArgumentException("lo is greater than hi!");
+        }
+        return rank(hi) - rank(lo) + (contains(hi) ? 1 : 0);
+    }
+
+    // returns a read-only copy of the table laid out for faster searches,
+    // see IntDoubleEytzingerST
+    public IntDoubleEytzingerST freeze() {
+        return new IntDoubleEytzingerST(keys, values, n);
+    }
+
+    // returns a copy of the keys in [lo, hi] in sorted order
+    public int[] keys(int lo, int hi) {
+        if (lo > hi) {
+            throw new IllegalArgumentException("lo is greater than hi!");
+        }
+        int start = rank(lo);
+        return Arrays.copyOfRange(keys, start, start + size(lo, hi));
+    }
+
+    // returns a copy of all keys in sorted order
+    public int[] keys() {
+        return Arrays.copyOf(keys, n);
+    }
+
+    // print key-value pairs in the table
+    private void print() {
+        for (int i = 0; i < n; i++) {
+            System.out.println(keys[i] + " " + values[i]);
+        }
+        System.out.println();
+    }
+
+    public static void main(String[] args) {
+        IntDoubleBinarySearchST st = new IntDoubleBinarySearchST();
+        st.put(1, 4.33);
+        st.put(2, 4.00);
+        st.put(5, 1.00);
+        st.print();
+        System.out.println(st.floor(3));
+        System.out.println(st.ceiling(0));
+        System.out.println(st.ceiling(5));
+
+        st.put(1, 6.33);
+        st.print();
+
+        st.deleteMax();
+        st.print();
+
+        st.deleteMin();
+        st.print();
+
+        st.put(1, 4.33);
+        st.put(3, 4.90);
+        st.put(5, 1.00);
+        for (int k : st.keys(0, 8)) {
+            System.out.println(k + " " + st.get(k));
+        }
+        System.out.println(st.getOrDefault(4, -1));
+    }
+}
@@ -0,0 +1,226 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * a read-only ordered symbol table from int keys to double values, with the
+ * keys in Eytzinger (BFS) order
+ *
+ * built by IntDoubleBinarySearchST.freeze(). same layout as EytzingerST, but
+ * the keys are an int[], so a compare is one load from the array itself
+ * instead of a dereference of a key object, and the two children of a node
+ * share a cache line. the descent is the same as in EytzingerST: without
+ * branches over the top levels, which stay in cache, and with a branch below
+ * them, so that the cpu can speculate past the cache misses.
+ *
+ * the sorted keys are kept alongside for select(), floor() and range queries.
+ */
+public class IntDoubleEytzingerST {
+
+    // largest size for which 2k + 1 cannot overflow during the descent
+    static final int MAX_SIZE = (1 << 30) - 1;
+    // slots in the top 16 levels, the part of the tree that stays in cache
+    private static final int HOT_SLOTS = (1 << 16) - 1;
+
+    private final int[] keys;       // keys in BFS order, 1-based
+    private final double[] values;  // values in BFS order
+    private final int[] ranks;      // ranks[k] = rank of keys[k]
+    private final int[] sorted;     // keys in sorted order
+    private final int n;
+    private final int hot;          // last slot of the levels searched without branches
+
+    // keys[0 .. n - 1] must be sorted and distinct
+    IntDoubleEytzingerST(int[] keys, double[] values, int n) {
+        if (n > MAX_SIZE) throw new IllegalArgumentException("table is too large!");
+        this.n = n;
+        this.hot = Math.min(n, HOT_SLOTS);
+        this.keys = new int[n + 1];
+        this.values = new double[n + 1];
+        this.ranks = new int[n + 1];
+        this.sorted = Arrays.copyOf(keys, n);
+        layout(keys, values, 0, 1);
+    }
+
+    // fills the subtree rooted at slot k in order, starting with sorted index i,
+    // and returns the next sorted index
+    private int layout(int[] sortedKeys, double[] sortedValues, int i, int k) {
+        if (k > n) return i;
+        i = layout(sortedKeys, sortedValues, i, 2 * k);
+        keys[k] = sortedKeys[i];
+        values[k] = sortedValues[i];
+        ranks[k] = i;
+        return layout(sortedKeys, sortedValues, i + 1, 2 * k + 1);
+    }
+
+    // returns the slot of the smallest key greater than or equal to key, 0 if none
+    private int lowerBound(int key) {
+        // the top levels stay in cache: descend without branches
+        int k = 1;
+        while (k <= hot) {
+            k = 2 * k + (keys[k] < key ? 1 : 0);
+        }
+        // the levels below miss the cache: with a branch the cpu speculates
+        // down one side and starts that load early, half of the time correctly
+        while (k <= n) {
+            if (keys[k] < key) {
+                k = 2 * k + 1;
+            } else {
+                k = 2 * k;
+            }
+        }
+        // k went right after the answer every time but once: drop those
+        // trailing right turns and the last left turn
+        return k >> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    // returns value associated with key, throws exception if there is none
+    public double get(int key) {
+        int k = lowerBound(key);
+        if (k != 0 && keys[k] == key) return values[k];
+        throw new NoSuchElementException("key " + key + " is not in the table!");
+    }
+
+    // returns value associated with key or defaultValue
+    public double getOrDefault(int key, double defaultValue) {
+        int k = lowerBound(key);
+        if (k != 0 && keys[k] == key) return values[k];
+        return defaultValue;
+    }
+
+    // returns true if contains key
+    public boolean contains(int key) {
+        int k = lowerBound(key);
+        return k != 0 && keys[k] == key;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public int min() {
+        if (isEmpty()) throw new NoSuchElementException("table is empty!");
+        return sorted[0];
+    }
+
+    public int max() {
+        if (isEmpty()) throw new NoSuchElementException("table is empty!");
+        return sorted[n - 1];
+    }
+
+    // returns largest key less than or equal to key
+    public int floor(int key) {
+        int k = lowerBound(key);
+        if (k != 0 && keys[k] == key) return key;
+        int rank = k == 0 ? n : ranks[k];
+        if (rank == 0) throw new NoSuchElementException("no key less than or equal to " + key);
+        return sorted[rank - 1];
+    }
+
+    // returns smallest key greater than or equal to key
+    public int ceiling(int key) {
+        int k = lowerBound(key);
+        if (k == 0) throw new NoSuchElementException("no key greater than or equal to " + key);
+        return keys[k];
+    }
+
+    // returns the number of elements less than key
+    public int rank(int key) {
+        int k = lowerBound(key);
+        return k == 0 ? n : ranks[k];
+    }
+
+    // returns key of rank k
+    public int select(int k) {
+        if (k < 0 || k >= n) {
+            throw new IllegalArgumentException("rank out of bound!");
+        }
+        return sorted[k];
+    }
+
+    // returns number of keys in [lo, hi]
+    public int size(int lo, int hi) {
+        if (lo > hi) {
+            throw new IllegalArgumentException("lo is greater than hi!");
+        }
+        return rank(hi) - rank(lo) + (contains(hi) ? 1 : 0);
+    }
+
+    // returns a copy of the keys in [lo, hi] in sorted order
+    public int[] keys(int lo, int hi) {
+        if (lo > hi) {
+            throw new IllegalArgumentException("lo is greater than hi!");
+        }
+        int start = rank(lo);
+        return Arrays.copyOfRange(sorted, start, start + size(lo, hi));
+    }
+
+    // returns a copy of all keys in sorted order
+    public int[] keys() {
+        return sorted.clone();
+    }
+
+    // times getOrDefault() and rank() against the IntDoubleBinarySearchST
+    // the table was frozen from
+    public static void main(String[] args) {
+        int[] sizes = {1 << 10, 1 << 16, 1 << 20, 1 << 22};
+        int queries = 1 << 22;
+        Random random = new Random(42);
+        for (int n : sizes) {
+            IntDoubleBinarySearchST st = new IntDoubleBinarySearchST(n);
+            int[] keys = new int[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = random.nextInt();
+            }
+            Arrays.sort(keys);
+            // sorted input appends at the end, so building is linear
+            for (int i = 0; i < n; i++) {
+                st.put(keys[i], i);
+            }
+            IntDoubleEytzingerST frozen = st.freeze();
+
+            // half of the queries hit a key, half fall between keys
+            int[] probes = new int[queries];
+            for (int i = 0; i < queries; i++) {
+                probes[i] = random.nextBoolean() ? keys[random.nextInt(n)] : random.nextInt();
+            }
+
+            System.out.printf("n = %d%n", st.size());
+            for (int round = 0; round < 5; round++) {
+                double checksum = 0;
+                long start = System.nanoTime();
+                for (int probe : probes) {
+                    checksum += st.getOrDefault(probe, 0);
+                }
+                long sortedGet = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int probe : probes) {
+                    checksum -= frozen.getOrDefault(probe, 0);
+                }
+                long eytzingerGet = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int probe : probes) {
+                    checksum += st.rank(probe);
+                }
+                long sortedRank = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int probe : probes) {
+                    checksum -= frozen.rank(probe);
+                }
+                long eytzingerRank = System.nanoTime() - start;
+
+                if (round < 4) continue;    // warm up
+                System.out.printf("  get:  binary search %6.1f ns, eytzinger %6.1f ns%n",
+                    (double) sortedGet / queries, (double) eytzingerGet / queries);
+                System.out.printf("  rank: binary search %6.1f ns, eytzinger %6.1f ns (checksum %.0f)%n",
+                    (double) sortedRank / queries, (double) eytzingerRank / queries, checksum);
+            }
+        }
+    }
+}
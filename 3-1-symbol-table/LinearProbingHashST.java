@@ -0,0 +1,195 @@
+import java.util.LinkedList;
+import java.util.Queue;
+
+/**
+ * a symbol table implemented with a linear probing hash table
+ *
+ * the capacity is always a power of two: the home slot is taken from the top
+ * bits of a multiplicative hash, probing wraps with a mask instead of a
+ * modulo, and the table doubles once size / capacity exceeds the load factor.
+ * delete() shifts the following keys of the cluster back instead of leaving
+ * tombstones, so lookups never have to skip deleted slots.
+ */
+public class LinearProbingHashST<Key, Value> {
+
+    private static final int INIT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;    // largest power of two array length
+    private static final double DEFAULT_LOAD_FACTOR = 0.5;
+
+    private Key[] keys;
+    private Value[] values;
+    private int size;
+    private final double loadFactor;    // maximum size / capacity before doubling
+
+    public LinearProbingHashST() {
+        this(INIT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    // capacity is rounded up to a power of two, so it can be at most 2^30
+    public LinearProbingHashST(int capacity, double loadFactor) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        if (capacity > MAX_CAPACITY) throw new IllegalArgumentException("capacity must be at most 2^30");
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("load factor must be in (0, 1)");
+        }
+        this.loadFactor = loadFactor;
+        int cap = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        keys = (Key[]) new Object[cap];
+        values = (Value[]) new Object[cap];
+        size = 0;
+    }
+
+    // throws exception if key is null
+    private void checkKeyNotNull(Key key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The key is null!");
+        }
+    }
+
+    // fibonacci hashing: multiply by 2^32 / golden ratio and keep the top bits,
+    // so that runs of consecutive hash codes do not form one long cluster
+    private int hash(Key key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h >>> (32 - Integer.numberOfTrailingZeros(keys.length));
+    }
+
+    // rehash all keys into a table of capacity newSize
+    private void resize(int newSize) {
+        Key[] oldKeys = keys;
+        Value[] oldValues = values;
+        keys = (Key[]) new Object[newSize];
+        values = (Value[]) new Object[newSize];
+        int mask = newSize - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) continue;
+            int j = hash(oldKeys[i]);
+            while (keys[j] != null) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+
+    // put key value pair into table, a null value deletes the key
+    public void put(Key key, Value val) {
+        checkKeyNotNull(key);
+        if (val == null) {
+            delete(key);
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = hash(key);
+        for (; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(key)) {
+                values[i] = val;
+                return;
+            }
+        }
+        // a table that can no longer double keeps one empty slot to end probes
+        if (keys.length == MAX_CAPACITY && size == MAX_CAPACITY - 1) {
+            throw new IllegalStateException("the table is full");
+        }
+        keys[i] = key;
+        values[i] = val;
+        size++;
+        if (size > loadFactor * keys.length && keys.length < MAX_CAPACITY) resize(keys.length * 2);
+    }
+
+    // returns value associated with key or null
+    public Value get(Key key) {
+        checkKeyNotNull(key);
+        int mask = keys.length - 1;
+        for (int i = hash(key); keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(key)) return values[i];
+        }
+        return null;
+    }
+
+    // deletes key and its value
+    public void delete(Key key) {
+        checkKeyNotNull(key);
+        int mask = keys.length - 1;
+        int i = hash(key);
+        while (keys[i] != null && !keys[i].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == null) return;
+
+        // backward shift: move later keys of the cluster into the hole
+        // unless their home slot lies cyclically in (hole, j]
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            int home = hash(keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        size--;
+        // resize when necessary
+        if (keys.length > INIT_CAPACITY && size <= loadFactor * keys.length / 4) resize(keys.length / 2);
+    }
+
+    // returns true if contains key
+    public boolean contains(Key key) {
+        return get(key) != null;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // returns an iterable object containing all keys in the table
+    public Iterable<Key> keys() {
+        Queue<Key> q = new LinkedList<>();
+        for (Key key : keys) {
+            if (key != null) q.add(key);
+        }
+        return q;
+    }
+
+    // print key-value pairs in the table
+    private void print() {
+        for (Key key : keys()) {
+            System.out.println(key + " " + get(key));
+        }
+        System.out.println();
+    }
+
+    public static void main(String[] args) {
+        LinearProbingHashST<String, Double> st = new LinearProbingHashST<>();
+        st.put("key1", 4.33);
+        st.put("key2", 4.00);
+        st.put("key3", 1.00);
+        st.print();
+
+        st.put("key1", 6.33);
+        st.print();
+
+        st.delete("key3");
+        st.print();
+
+        // compare with the linear scan of ArrayST
+        int n = 1_000_000;
+        LinearProbingHashST<Integer, Integer> large = new LinearProbingHashST<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            large.put(i, i);
+        }
+        for (int i = 0; i < n; i += 2) {
+            large.delete(i);
+        }
+        long hits = 0;
+        for (int i = 0; i < n; i++) {
+            if (large.contains(i)) hits++;
+        }
+        System.out.printf("%d puts, %d deletes, %d gets in %.3f s, %d keys left (%d hits)%n",
+            n, n / 2, n, (System.nanoTime() - start) / 1e9, large.size(), hits);
+    }
+}
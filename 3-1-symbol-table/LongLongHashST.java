@@ -0,0 +1,198 @@
+import java.util.NoSuchElementException;
+
+/**
+ * a symbol table from long keys to long values, using linear probing
+ *
+ * same layout as LinearProbingHashST, but keys and values are stored in two
+ * long[] arrays, so nothing is boxed and put() and get() do not allocate
+ * (except when resizing). key 0 marks an empty slot, so the entry for key 0,
+ * if any, is kept in separate fields.
+ *
+ * since a missing value cannot be null, get() throws for a missing key and
+ * getOrDefault() returns a given default instead.
+ */
+public class LongLongHashST {
+
+    private static final int INIT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;    // largest power of two array length
+    private static final double DEFAULT_LOAD_FACTOR = 0.5;
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+    private long[] values;
+    private int size;               // number of keys, including key 0
+    private boolean hasZeroKey;
+    private long zeroValue;
+    private final double loadFactor;    // maximum size / capacity before doubling
+
+    public LongLongHashST() {
+        this(INIT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    // capacity is rounded up to a power of two, so it can be at most 2^30
+    public LongLongHashST(int capacity, double loadFactor) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        if (capacity > MAX_CAPACITY) throw new IllegalArgumentException("capacity must be at most 2^30");
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("load factor must be in (0, 1)");
+        }
+        this.loadFactor = loadFactor;
+        int cap = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        keys = new long[cap];
+        values = new long[cap];
+        size = 0;
+    }
+
+    // fibonacci hashing: multiply by 2^64 / golden ratio and keep the top bits
+    private int hash(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+    }
+
+    // rehash all keys into a table of capacity newSize
+    private void resize(int newSize) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[newSize];
+        values = new long[newSize];
+        int mask = newSize - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int j = hash(oldKeys[i]);
+            while (keys[j] != EMPTY) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+
+    // put key value pair into table
+    public void put(long key, long val) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) size++;
+            hasZeroKey = true;
+            zeroValue = val;
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = hash(key);
+        for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = val;
+                return;
+            }
+        }
+        // a table that can no longer double keeps one empty slot to end probes
+        if (keys.length == MAX_CAPACITY && size == MAX_CAPACITY - 1) {
+            throw new IllegalStateException("the table is full");
+        }
+        keys[i] = key;
+        values[i] = val;
+        size++;
+        if (size > loadFactor * keys.length && keys.length < MAX_CAPACITY) resize(keys.length * 2);
+    }
+
+    // returns the slot of key or -1
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) return i;
+        }
+        return -1;
+    }
+
+    // returns value associated with key, throws exception if there is none
+    public long get(long key) {
+        if (key == EMPTY) {
+            if (hasZeroKey) return zeroValue;
+        } else {
+            int i = slot(key);
+            if (i >= 0) return values[i];
+        }
+        throw new NoSuchElementException("key " + key + " is not in the table!");
+    }
+
+    // returns value associated with key or defaultValue
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == EMPTY) return hasZeroKey ? zeroValue : defaultValue;
+        int i = slot(key);
+        return i >= 0 ? values[i] : defaultValue;
+    }
+
+    // deletes key and its value
+    public void delete(long key) {
+        if (key == EMPTY) {
+            if (hasZeroKey) size--;
+            hasZeroKey = false;
+            return;
+        }
+        int i = slot(key);
+        if (i < 0) return;
+
+        // backward shift: move later keys of the cluster into the hole
+        // unless their home slot lies cyclically in (hole, j]
+        int mask = keys.length - 1;
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = hash(keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+        // resize when necessary
+        if (keys.length > INIT_CAPACITY && size <= loadFactor * keys.length / 4) resize(keys.length / 2);
+    }
+
+    // returns true if contains key
+    public boolean contains(long key) {
+        return key == EMPTY ? hasZeroKey : slot(key) >= 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // returns all keys in the table, in no particular order
+    public long[] keys() {
+        long[] result = new long[size];
+        int k = 0;
+        if (hasZeroKey) result[k++] = EMPTY;
+        for (long key : keys) {
+            if (key != EMPTY) result[k++] = key;
+        }
+        return result;
+    }
+
+    public static void main(String[] args) {
+        LongLongHashST st = new LongLongHashST();
+        st.put(0, 10);
+        st.put(42, 4200);
+        st.put(-7, 70);
+        for (long key : st.keys()) {
+            System.out.println(key + " " + st.get(key));
+        }
+        System.out.println();
+
+        st.delete(42);
+        System.out.println(st.contains(42) + " " + st.getOrDefault(42, -1) + " " + st.size());
+
+        int n = 1_000_000;
+        LongLongHashST large = new LongLongHashST();
+        long start = System.nanoTime();
+        for (long i = 0; i < n; i++) {
+            large.put(i << 20, i);
+        }
+        long sum = 0;
+        for (long i = 0; i < n; i++) {
+            sum += large.getOrDefault(i << 20, 0);
+        }
+        System.out.printf("%d puts and %d gets in %.3f s (checksum %d)%n",
+            n, n, (System.nanoTime() - start) / 1e9, sum);
+    }
+}
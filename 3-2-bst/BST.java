@@ -1,6 +1,9 @@
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 public class BST<Key extends Comparable<Key>, Value> {
 
@@ -37,25 +40,23 @@ public class BST<Key extends Comparable<Key>, Value> {
     }
 
     // returns the node associated with the key or null
-    private Node getNode(Key key, Node root) {
-        checkKeyNotNull(key);
-        if (root == null) return null;
-        int cmp = root.key.compareTo(key);
-        if (cmp == 0)       return root;
-        else if (cmp > 0)   return getNode(key, root.left);
-        else                return getNode(key, root.right);
+    private Node getNode(Key key) {
+        Node node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0)       return node;
+            else if (cmp > 0)   node = node.left;
+            else                node = node.right;
+        }
+        return null;
     }
 
-    // put key value pair into subtree rooted at node
-    // returns the root node after insertion
-    private Node putNode(Key key, Value val, Node node) {
-        if (node == null) return new Node(key, val, 1);
-        int cmp = node.key.compareTo(key);
-        if (cmp == 0)        node.val = val;
-        else if (cmp > 0)    node.left = putNode(key, val, node.left);
-        else                 node.right = putNode(key, val, node.right);
-        node.n = 1 + size(node.left) + size(node.right);
-        return node;
+    // add delta to the node count of every node on the path, which holds
+    // the ancestors of the node put() or delete() changed
+    private void unwindPath(Deque<Node> path, int delta) {
+        while (!path.isEmpty()) {
+            path.pop().n += delta;
+        }
     }
 
     // put key value pair into the symbol table
@@ -65,20 +66,43 @@ public class BST<Key extends Comparable<Key>, Value> {
             delete(key);
             return;
         }
-        root = putNode(key, val, root);
+        if (root == null) {
+            root = new Node(key, val, 1);
+            return;
+        }
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        while (true) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) {
+                // key already exists, no count changes
+                node.val = val;
+                return;
+            }
+            path.push(node);
+            Node next = cmp > 0 ? node.left : node.right;
+            if (next == null) {
+                if (cmp > 0)    node.left = new Node(key, val, 1);
+                else            node.right = new Node(key, val, 1);
+                break;
+            }
+            node = next;
+        }
+        // every node on the path gained one key
+        unwindPath(path, 1);
     }
 
     // return value associated the the input key
     public Value get(Key key) {
         checkKeyNotNull(key);
-        Node node = getNode(key, root);
+        Node node = getNode(key);
         return node == null ? null : node.val;
     }
 
     // true if contains key
     public boolean contains(Key key) {
         checkKeyNotNull(key);
-        return getNode(key, root) != null;
+        return getNode(key) != null;
     }
 
     // true if the BST is empty
@@ -124,37 +148,39 @@ public class BST<Key extends Comparable<Key>, Value> {
     // return the largest key less than or equal to input
     public Key floor(Key key) {
         checkKeyNotNull(key);
-        return floor(key, root);
-    }
-
-    // recursively find the floor(key) in subtree rooted at node
-    private Key floor(Key key, Node node) {
-        checkKeyNotNull(key);
-        if (node == null) return null;
-        int cmp = node.key.compareTo(key);
-        if (cmp == 0)       return node.key;
-        if (cmp > 0)        return floor(key, node.left);
-        Key ans = floor(key, node.right);
-        return ans == null ? node.key : ans;
+        Key ans = null;
+        Node node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) return node.key;
+            if (cmp > 0) {
+                node = node.left;
+            } else {
+                // node.key is a candidate, look for a larger one on the right
+                ans = node.key;
+                node = node.right;
+            }
+        }
+        return ans;
     }
 
     // return the smallest key greater than or equal to input
     public Key ceiling(Key key) {
         checkKeyNotNull(key);
-        return ceiling(key, root);
-    }
-
-    // find ceiling(key) in subtree rooted at node
-    private Key ceiling(Key key, Node node) {
-        checkKeyNotNull(key);
-        if (node == null) return null;
-        if (node.key.equals(key)) return node.key;
-        if (node.key.compareTo(key) > 0) {
-            Key ans = ceiling(key, node.left);
-            return ans == null ? node.key : ans;
-        } else {
-            return ceiling(key, node.right);
+        Key ans = null;
+        Node node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) return node.key;
+            if (cmp < 0) {
+                node = node.right;
+            } else {
+                // node.key is a candidate, look for a smaller one on the left
+                ans = node.key;
+                node = node.left;
+            }
         }
+        return ans;
     }
 
     // return the key of rank k
@@ -163,91 +189,105 @@ public class BST<Key extends Comparable<Key>, Value> {
         if (k < 0 || k >= size()) {
             throw new IllegalArgumentException("rank is out of bound!");
         }
-        return select(k, root);
-    }
-
-    // return the key of rank in subtree rooted at node
-    private Key select(int k, Node node) {
-        if (root == null) return null;
-        int left = size(root.left);
-        if (k < left) {
-            return select(k, node.left);
-        } else if (k == left) {
-            return node.key;
-        } else {
-            return select(k - left - 1, node.right);
+        Node node = root;
+        while (true) {
+            int left = size(node.left);
+            if (k < left) {
+                node = node.left;
+            } else if (k == left) {
+                return node.key;
+            } else {
+                k -= left + 1;
+                node = node.right;
+            }
         }
     }
 
-
     // return the number of keys less than key
     public int rank(Key key) {
         checkKeyNotNull(key);
-        return rank(key, root);
-    }
-
-    // return the rank of key in subtree rooted at node
-    private int rank(Key key, Node node) {
-        checkKeyNotNull(key);
-        if (node == null) return 0;
-        int cmp = node.key.compareTo(key);
-        if (cmp == 0)       return size(node.left);
-        if (cmp > 0)        return rank(key, node.left);
-        else                return size(node.left) + 1 + rank(key, node.right);
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) return rank + size(node.left);
+            if (cmp > 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
     }
 
     // delete smallest key
     public void deleteMin() {
         checkEmpty();
-        root = deleteMin(root);
-    }
-
-    // delete min in subtree rooted at node and return new root
-    private Node deleteMin(Node node) {
-        if (node == null) return null;
-        if (node.left == null) return node.right;
-        node.left = deleteMin(node.left);
-        node.n = 1 + size(node.left) + size(node.right);
-        return node;
+        Node parent = null;
+        Node node = root;
+        Deque<Node> path = new ArrayDeque<>();
+        while (node.left != null) {
+            path.push(node);
+            parent = node;
+            node = node.left;
+        }
+        if (parent == null) root = node.right;
+        else                parent.left = node.right;
+        unwindPath(path, -1);
     }
 
     // delete largest key
     public void deleteMax() {
         checkEmpty();
-        deleteMax(root);
-    }
-
-    // delete max in subtree rooted at node and return new root
-    private Node deleteMax(Node node) {
-        if (node == null) return null;
-        if (node.right == null) return node.left;
-        node.right = deleteMax(node.right);
-        node.n = 1 + size(node.left) + size(node.right);
-        return node;
+        Node parent = null;
+        Node node = root;
+        Deque<Node> path = new ArrayDeque<>();
+        while (node.right != null) {
+            path.push(node);
+            parent = node;
+            node = node.right;
+        }
+        if (parent == null) root = node.left;
+        else                parent.right = node.left;
+        unwindPath(path, -1);
     }
 
     // delete key and its value
     public void delete(Key key) {
         checkKeyNotNull(key);
-        root = delete(key, root);
-    }
-
-    // delete key in subtree rooted at node and return new root
-    private Node delete(Key key, Node node) {
-        if (node == null) return null;
-        int cmp = node.key.compareTo(key);
-        if      (cmp > 0)   node.left = delete(key, node.left);
-        else if (cmp < 0)   node.right = delete(key, node.right);
-        else {
-            if (node.left == null) return node.right;
-            if (node.right == null) return node.left;
-            Node next = getMinNode(node.right);
-            next.right = deleteMin(node.right);
-            next.left = node.left;
+        Node parent = null;
+        Node node = root;
+        Deque<Node> path = new ArrayDeque<>();
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) break;
+            path.push(node);
+            parent = node;
+            node = cmp > 0 ? node.left : node.right;
+        }
+        if (node == null) return;
+        if (node.left != null && node.right != null) {
+            // take over key and value of the successor and unlink the successor instead
+            path.push(node);
+            parent = node;
+            Node next = node.right;
+            while (next.left != null) {
+                path.push(next);
+                parent = next;
+                next = next.left;
+            }
+            node.key = next.key;
+            node.val = next.val;
             node = next;
         }
-        node.n = 1 + size(node.left) + size(node.right);
-        return node;
+        // node has at most one child, replace it by that child
+        Node child = node.left != null ? node.left : node.right;
+        if (parent == null)             root = child;
+        else if (parent.left == node)   parent.left = child;
+        else                            parent.right = child;
+        // every node on the path lost one key
+        unwindPath(path, -1);
     }
 
     // returns the number of keys in [lo, hi]
@@ -259,40 +299,129 @@ public class BST<Key extends Comparable<Key>, Value> {
     }
 
     // return keys in range in sorted order
+    // the keys are visited lazily by a cursor, so the bst must not be
+    // modified while they are iterated
     public Iterable<Key> keys(Key lo, Key hi) {
         checkKeyNotNull(lo);
         checkKeyNotNull(hi);
-        Queue<Key> q = new LinkedList<>();
-        inorder(root, q, lo, hi);
-        return q;
+        return new Iterable<Key>() {
+            @Override
+            public Iterator<Key> iterator() {
+                return cursor(lo, hi);
+            }
+
+            @Override
+            public Spliterator<Key> spliterator() {
+                return Spliterators.spliterator(iterator(), size(lo, hi),
+                    Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+            }
+        };
     }
 
-    // return all keys in sorted order
+    // return all keys in sorted order, lazily like keys(lo, hi)
     public Iterable<Key> keys() {
-        Queue<Key> q = new LinkedList<>();
-        inorder(root, q);
-        return q;
-    }
+        return new Iterable<Key>() {
+            @Override
+            public Iterator<Key> iterator() {
+                return cursor();
+            }
+
+            @Override
+            public Spliterator<Key> spliterator() {
+                return Spliterators.spliterator(iterator(), size(),
+                    Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+            }
+        };
+    }
+
+    // return a cursor over the keys in [lo, hi]
+    public Cursor cursor(Key lo, Key hi) {
+        checkKeyNotNull(lo);
+        checkKeyNotNull(hi);
+        Cursor cursor = new Cursor(lo, hi);
+        cursor.seek(lo);
+        return cursor;
+    }
+
+    // return a cursor over all keys
+    public Cursor cursor() {
+        Cursor cursor = new Cursor(null, null);
+        cursor.pushLeft(root);
+        return cursor;
+    }
+
+    // a lazy in-order cursor over the keys up to an optional upper bound
+    //
+    // the stack holds the nodes whose left subtree is done but which have not
+    // been returned yet, so it never holds more than height nodes. seek()
+    // rebuilds it in one descent from the root and next() costs O(1)
+    // amortized, so reading K keys from a seek position costs O(log N + K)
+    // on a balanced tree. a page of a range query is a seek() to the first
+    // key of the page followed by next() calls.
+    //
+    // the cursor reads the live tree, so the bst must not be modified while
+    // it is in use.
+    public class Cursor implements Iterator<Key> {
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private final Key lo;   // lower bound, null if there is none
+        private final Key hi;   // upper bound, null if there is none
+        private Node last;      // node returned by the last next()
+
+        private Cursor(Key lo, Key hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
 
-    // inorder traversal of BST and put keys into queue
-    private void inorder(Node node, Queue<Key> q) {
-        if (node == null) return;
-        inorder(node.left, q);
-        q.offer(node.key);
-        inorder(node.right, q);
-    }
+        // push node and its chain of left children
+        private void pushLeft(Node node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
 
-    // inorder traversal of BST within range and put keys into queue
-    private void inorder(Node node, Queue<Key> q, Key lo, Key hi) {
-        if (node == null) return;
-        if (node.left != null && getMaxNode(node.left).key.compareTo(lo) >= 0) {
-            inorder(node.left, q);
+        // move to the smallest key greater than or equal to key,
+        // but not before the lower bound of the cursor
+        public void seek(Key key) {
+            checkKeyNotNull(key);
+            if (lo != null && key.compareTo(lo) < 0) key = lo;
+            stack.clear();
+            last = null;
+            Node node = root;
+            while (node != null) {
+                int cmp = node.key.compareTo(key);
+                if (cmp == 0) {
+                    stack.push(node);
+                    return;
+                }
+                if (cmp > 0) {
+                    // node comes after key, visit it once its left subtree is done
+                    stack.push(node);
+                    node = node.left;
+                } else {
+                    // node and its left subtree come before key
+                    node = node.right;
+                }
+            }
         }
-        if (node.key.compareTo(lo) >= 0 && node.key.compareTo(hi) <= 0) {
-            q.offer(node.key);
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && (hi == null || stack.peek().key.compareTo(hi) <= 0);
         }
-        if (node.right != null && getMinNode(node.right).key.compareTo(hi) <= 0) {
-            inorder(node.right, q);
+
+        @Override
+        public Key next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            last = stack.pop();
+            pushLeft(last.right);
+            return last.key;
+        }
+
+        // return the value of the key returned by the last next()
+        public Value value() {
+            if (last == null) throw new IllegalStateException("next() has not been called!");
+            return last.val;
         }
     }
 
@@ -324,6 +453,16 @@ public class BST<Key extends Comparable<Key>, Value> {
             System.out.println(k + " " + st.get(k));
         }
         System.out.println();
+
+        // read a range two keys per page
+        BST<String, Double>.Cursor cursor = st.cursor("akey", "key5");
+        for (int page = 0; cursor.hasNext(); page++) {
+            System.out.print("page " + page + ":");
+            for (int i = 0; i < 2 && cursor.hasNext(); i++) {
+                System.out.print(" " + cursor.next() + "=" + cursor.value());
+            }
+            System.out.println();
+        }
     }
 
     private static void print(BST<String, Double> st) {
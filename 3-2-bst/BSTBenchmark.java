@@ -0,0 +1,276 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * times the BST operations on random and on sorted keys, against a
+ * recursive BST as the baseline
+ *
+ * usage: BSTBenchmark [n] [sorted n] [trials]
+ *
+ * random keys give a tree of expected depth about 2 ln N. sorted keys turn
+ * the BST into a path of length N, which is what exposes recursion: an
+ * operation that throws StackOverflowError is reported as such.
+ */
+public class BSTBenchmark {
+
+    private static final int DEFAULT_N = 1_000_000;
+    private static final int DEFAULT_SORTED_N = 20_000;
+    private static final int DEFAULT_TRIALS = 3;
+    private static final String[] OPERATIONS = {"put", "get", "floor", "ceiling", "rank", "select", "delete"};
+
+    private static long sink;   // keeps the JIT from dropping results
+
+    // the operations timed, implemented by BST and by the recursive baseline
+    private interface Table {
+        void put(Integer key, Integer val);
+        Integer get(Integer key);
+        Integer floor(Integer key);
+        Integer ceiling(Integer key);
+        int rank(Integer key);
+        Integer select(int k);
+        void delete(Integer key);
+    }
+
+    private static Table iterative() {
+        BST<Integer, Integer> st = new BST<>();
+        return new Table() {
+            public void put(Integer key, Integer val) { st.put(key, val); }
+            public Integer get(Integer key) { return st.get(key); }
+            public Integer floor(Integer key) { return st.floor(key); }
+            public Integer ceiling(Integer key) { return st.ceiling(key); }
+            public int rank(Integer key) { return st.rank(key); }
+            public Integer select(int k) { return st.select(k); }
+            public void delete(Integer key) { st.delete(key); }
+        };
+    }
+
+    private static Table recursive() {
+        RecursiveBST<Integer, Integer> st = new RecursiveBST<>();
+        return new Table() {
+            public void put(Integer key, Integer val) { st.put(key, val); }
+            public Integer get(Integer key) { return st.get(key); }
+            public Integer floor(Integer key) { return st.floor(key); }
+            public Integer ceiling(Integer key) { return st.ceiling(key); }
+            public int rank(Integer key) { return st.rank(key); }
+            public Integer select(int k) { return st.select(k); }
+            public void delete(Integer key) { st.delete(key); }
+        };
+    }
+
+    // the recursive BST that BST replaced, kept as the baseline
+    private static final class RecursiveBST<Key extends Comparable<Key>, Value> {
+
+        private class Node {
+            Key key;
+            Value val;
+            Node left;
+            Node right;
+            int n;  // node count of subtree rooted at the node
+
+            Node(Key key, Value val, int n) {
+                this.key = key;
+                this.val = val;
+                this.n = n;
+            }
+        }
+
+        private Node root;
+
+        private int size(Node node) {
+            return node == null ? 0 : node.n;
+        }
+
+        void put(Key key, Value val) {
+            root = put(key, val, root);
+        }
+
+        private Node put(Key key, Value val, Node node) {
+            if (node == null) return new Node(key, val, 1);
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0)        node.val = val;
+            else if (cmp > 0)    node.left = put(key, val, node.left);
+            else                 node.right = put(key, val, node.right);
+            node.n = 1 + size(node.left) + size(node.right);
+            return node;
+        }
+
+        Value get(Key key) {
+            Node node = getNode(key, root);
+            return node == null ? null : node.val;
+        }
+
+        private Node getNode(Key key, Node node) {
+            if (node == null) return null;
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0)       return node;
+            else if (cmp > 0)   return getNode(key, node.left);
+            else                return getNode(key, node.right);
+        }
+
+        Key floor(Key key) {
+            return floor(key, root);
+        }
+
+        private Key floor(Key key, Node node) {
+            if (node == null) return null;
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0)       return node.key;
+            if (cmp > 0)        return floor(key, node.left);
+            Key ans = floor(key, node.right);
+            return ans == null ? node.key : ans;
+        }
+
+        Key ceiling(Key key) {
+            return ceiling(key, root);
+        }
+
+        private Key ceiling(Key key, Node node) {
+            if (node == null) return null;
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0)       return node.key;
+            if (cmp < 0)        return ceiling(key, node.right);
+            Key ans = ceiling(key, node.left);
+            return ans == null ? node.key : ans;
+        }
+
+        int rank(Key key) {
+            return rank(key, root);
+        }
+
+        private int rank(Key key, Node node) {
+            if (node == null) return 0;
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0)       return size(node.left);
+            if (cmp > 0)        return rank(key, node.left);
+            else                return size(node.left) + 1 + rank(key, node.right);
+        }
+
+        Key select(int k) {
+            return select(k, root);
+        }
+
+        private Key select(int k, Node node) {
+            int left = size(node.left);
+            if (k < left)       return select(k, node.left);
+            else if (k == left) return node.key;
+            else                return select(k - left - 1, node.right);
+        }
+
+        void delete(Key key) {
+            root = delete(key, root);
+        }
+
+        private Node delete(Key key, Node node) {
+            if (node == null) return null;
+            int cmp = node.key.compareTo(key);
+            if      (cmp > 0)   node.left = delete(key, node.left);
+            else if (cmp < 0)   node.right = delete(key, node.right);
+            else {
+                if (node.left == null) return node.right;
+                if (node.right == null) return node.left;
+                Node next = node.right;
+                while (next.left != null) next = next.left;
+                next.right = deleteMin(node.right);
+                next.left = node.left;
+                node = next;
+            }
+            node.n = 1 + size(node.left) + size(node.right);
+            return node;
+        }
+
+        private Node deleteMin(Node node) {
+            if (node.left == null) return node.right;
+            node.left = deleteMin(node.left);
+            node.n = 1 + size(node.left) + size(node.right);
+            return node;
+        }
+    }
+
+    // runs op(i) for i in [0, ops) and returns the best time per op over the trials
+    private static String time(int ops, int trials, Runnable setup, IntConsumer op) {
+        long best = Long.MAX_VALUE;
+        try {
+            for (int t = 0; t < trials; t++) {
+                setup.run();
+                long start = System.nanoTime();
+                for (int i = 0; i < ops; i++) {
+                    op.accept(i);
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            return String.format("%9.1f ns/op", (double) best / ops);
+        } catch (StackOverflowError e) {
+            return "StackOverflowError";
+        } catch (RuntimeException e) {
+            return "failed: " + e;
+        }
+    }
+
+    // returns the time per op of every operation in OPERATIONS
+    private static String[] times(Supplier<Table> factory, int[] keys, int trials) {
+        int n = keys.length;
+        Table[] st = new Table[1];
+        Runnable build = () -> {
+            st[0] = factory.get();
+            for (int i = 0; i < n; i++) {
+                st[0].put(keys[i], i);
+            }
+        };
+        Runnable none = () -> { };
+
+        String[] times = new String[OPERATIONS.length];
+        Arrays.fill(times, "not built");
+        times[0] = time(n, trials, () -> st[0] = factory.get(), i -> st[0].put(keys[i], i));
+        try {
+            build.run();
+        } catch (StackOverflowError e) {
+            return times;
+        }
+        times[1] = time(n, trials, none, i -> sink += st[0].get(keys[i]));
+        times[2] = time(n, trials, none, i -> sink += st[0].floor(keys[i] + 1));
+        times[3] = time(n, trials, none, i -> sink += st[0].ceiling(keys[i] - 1));
+        times[4] = time(n, trials, none, i -> sink += st[0].rank(keys[i]));
+        times[5] = time(n, trials, none, i -> sink += st[0].select(i));
+        times[6] = time(n, trials, build, i -> st[0].delete(keys[i]));
+        return times;
+    }
+
+    private static void run(String title, int[] keys, int trials) {
+        System.out.println(title + ", n = " + keys.length);
+        String[] recursive = times(BSTBenchmark::recursive, keys, trials);
+        String[] iterative = times(BSTBenchmark::iterative, keys, trials);
+        System.out.printf("  %-10s %-20s %-20s%n", "", "recursive", "iterative");
+        for (int k = 0; k < OPERATIONS.length; k++) {
+            System.out.printf("  %-10s %-20s %-20s%n", OPERATIONS[k], recursive[k], iterative[k]);
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_N;
+        int sortedN = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SORTED_N;
+        int trials = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_TRIALS;
+
+        // distinct random keys, spaced so that floor(k + 1) and ceiling(k - 1) are k
+        Random random = new Random(42);
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = 4 * i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        run("random keys", keys, trials);
+
+        int[] sorted = new int[sortedN];
+        for (int i = 0; i < sortedN; i++) {
+            sorted[i] = 4 * i;
+        }
+        run("sorted keys", sorted, 1);
+        System.out.println("checksum " + sink);
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * a thread-safe ordered symbol table whose readers never block or retry
+ *
+ * the table is one PersistentBST, a weight-balanced tree whose nodes never
+ * change, held in an AtomicReference. a reader loads the current version
+ * once and walks it without any lock or validation: no writer can touch the
+ * nodes it sees, so every read, including rank(), select() and keys(), runs
+ * on one consistent state of the whole table in O(log N) like on a
+ * single-threaded tree. snapshot() hands out that version for a series of
+ * reads that must agree with each other.
+ *
+ * a writer builds the next version by copying the O(log N) nodes on the
+ * path to its key, without a lock, and publishes it with a compare-and-set
+ * of the root. if another writer published first, it copies the path again
+ * from the new version. writers never block each other or the readers, but
+ * every update goes through the one root, so writers on several cores take
+ * turns at the compare-and-set and do not scale with the number of cores;
+ * main() measures the puts per second for 1, 2, 4 .. writers.
+ */
+public class ConcurrentBST<Key extends Comparable<Key>, Value> {
+
+    private final AtomicReference<PersistentBST<Key, Value>> table =
+        new AtomicReference<>(new PersistentBST<>());
+
+    // throws exception if key is null
+    private void checkKeyNotNull(Key key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The key is null!");
+        }
+    }
+
+    // replaces the current version by change(version), retrying on a new
+    // version if another writer published in between. change must have no
+    // side effects, since it may run more than once
+    private void update(UnaryOperator<PersistentBST<Key, Value>> change) {
+        table.updateAndGet(change);
+    }
+
+    // return the current version of the table, which never changes
+    public PersistentBST<Key, Value> snapshot() {
+        return table.get();
+    }
+
+    // put key value pair into the symbol table
+    public void put(Key key, Value val) {
+        checkKeyNotNull(key);
+        update(version -> version.put(key, val));
+    }
+
+    // return value associated the the input key
+    public Value get(Key key) {
+        return table.get().get(key);
+    }
+
+    // true if contains key
+    public boolean contains(Key key) {
+        return table.get().contains(key);
+    }
+
+    // true if the BST is empty
+    public boolean isEmpty() {
+        return table.get().isEmpty();
+    }
+
+    // return the number of elements in the BST
+    public int size() {
+        return table.get().size();
+    }
+
+    // return the minimum(leftmost) key
+    public Key min() {
+        return table.get().min();
+    }
+
+    // return the maximum(rightmost) key
+    public Key max() {
+        return table.get().max();
+    }
+
+    // return the largest key less than or equal to input
+    public Key floor(Key key) {
+        return table.get().floor(key);
+    }
+
+    // return the smallest key greater than or equal to input
+    public Key ceiling(Key key) {
+        return table.get().ceiling(key);
+    }
+
+    // return the key of rank k
+    public Key select(int k) {
+        return table.get().select(k);
+    }
+
+    // return the number of keys less than key
+    public int rank(Key key) {
+        return table.get().rank(key);
+    }
+
+    // delete smallest key
+    public void deleteMin() {
+        update(PersistentBST::deleteMin);
+    }
+
+    // delete largest key
+    public void deleteMax() {
+        update(PersistentBST::deleteMax);
+    }
+
+    // delete key and its value
+    public void delete(Key key) {
+        checkKeyNotNull(key);
+        update(version -> version.delete(key));
+    }
+
+    // returns the number of keys in [lo, hi]
+    public int size(Key lo, Key hi) {
+        return table.get().size(lo, hi);
+    }
+
+    // return the keys in range in sorted order, as of the current version
+    public Iterable<Key> keys(Key lo, Key hi) {
+        return table.get().keys(lo, hi);
+    }
+
+    // return all keys in sorted order, as of the current version
+    public Iterable<Key> keys() {
+        return table.get().keys();
+    }
+
+    // readers query the table while writer threads fill it, each writer
+    // putting the keys i with i % writers == its id in increasing order.
+    // runs with 1, 2, 4 .. up to the given number of writers
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int maxWriters = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int readers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        System.out.println(Runtime.getRuntime().availableProcessors() + " processors");
+        for (int writers = 1; writers <= maxWriters; writers *= 2) {
+            load(n, writers, readers);
+        }
+    }
+
+    private static void load(int n, int writers, int readers) throws InterruptedException {
+        ConcurrentBST<Integer, Integer> st = new ConcurrentBST<>();
+        AtomicBoolean done = new AtomicBoolean();
+        long[] reads = new long[readers];
+
+        Thread[] threads = new Thread[readers];
+        for (int t = 0; t < readers; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                long count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!done.get()) {
+                    int key = random.nextInt(n);
+                    PersistentBST<Integer, Integer> snapshot = st.snapshot();
+                    Integer value = snapshot.get(key);
+                    if (value != null && value != key) throw new IllegalStateException("bad value");
+                    // with one writer every key below a hit is present
+                    if (value != null && writers == 1 && snapshot.rank(key) != key) throw new IllegalStateException("bad rank");
+                    count++;
+                }
+                reads[id] = count;
+            });
+            threads[t].start();
+        }
+
+        Thread[] loaders = new Thread[writers];
+        long start = System.nanoTime();
+        for (int w = 0; w < writers; w++) {
+            int id = w;
+            loaders[w] = new Thread(() -> {
+                for (int i = id; i < n; i += writers) {
+                    st.put(i, i);
+                }
+            });
+            loaders[w].start();
+        }
+        for (Thread loader : loaders) {
+            loader.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        done.set(true);
+        long totalReads = 0;
+        for (int t = 0; t < readers; t++) {
+            threads[t].join();
+            totalReads += reads[t];
+        }
+        System.out.printf("%d puts by %d writers in %.3f s (%.0f puts/sec) alongside %d readers doing %d reads (%.0f reads/sec)%n",
+            n, writers, seconds, n / seconds, readers, totalReads, totalReads / seconds);
+        if (st.size() != n) throw new IllegalStateException("lost puts: size " + st.size());
+        StringBuilder range = new StringBuilder();
+        for (int key : st.keys(10, 20)) {
+            range.append(' ').append(key);
+        }
+        System.out.println("  size " + st.size() + ", select(n / 2) = " + st.select(n / 2)
+            + ", rank(n / 2) = " + st.rank(n / 2) + ", keys in [10, 20]:" + range);
+    }
+}
@@ -0,0 +1,426 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * an immutable, persistent ordered symbol table
+ *
+ * put() and delete() leave the table unchanged and return a new version.
+ * only the nodes on the path to the changed key are copied, every other
+ * subtree is shared with the previous version, so an update costs O(log N)
+ * time and memory and old versions stay valid for as long as someone holds
+ * them. nodes are never modified after construction, so any version can be
+ * read by any number of threads without locks; publishing a new version
+ * through a volatile field or an AtomicReference gives readers a consistent
+ * snapshot.
+ *
+ * the tree is weight-balanced (Adams' trees with delta = 3 and ratio = 2,
+ * as in Haskell's Data.Map): neither subtree of a node with two or more
+ * keys holds more than delta times as many nodes as the other, rebalancing
+ * with single or double rotations of the copied path, so the height stays
+ * O(log N) and the subtree sizes needed for rank() and select() come for free.
+ */
+public class PersistentBST<Key extends Comparable<Key>, Value> {
+
+    private static final int DELTA = 3;     // maximum ratio between the sizes of two siblings
+    private static final int RATIO = 2;     // decides between a single and a double rotation
+
+    private static final class Node<Key, Value> {
+        final Key key;
+        final Value val;
+        final Node<Key, Value> left;
+        final Node<Key, Value> right;
+        final int n;    // node count of subtree rooted at the node
+
+        Node(Key key, Value val, Node<Key, Value> left, Node<Key, Value> right) {
+            this.key = key;
+            this.val = val;
+            this.left = left;
+            this.right = right;
+            this.n = 1 + size(left) + size(right);
+        }
+    }
+
+    private final Node<Key, Value> root;
+
+    // the empty table
+    public PersistentBST() {
+        this(null);
+    }
+
+    private PersistentBST(Node<Key, Value> root) {
+        this.root = root;
+    }
+
+    // wraps a new root, or returns this if the root did not change
+    private PersistentBST<Key, Value> withRoot(Node<Key, Value> newRoot) {
+        return newRoot == root ? this : new PersistentBST<>(newRoot);
+    }
+
+    // throws exception if key is null
+    private static void checkKeyNotNull(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The key is null!");
+        }
+    }
+
+    // throws exception if the bst is empty
+    private void checkEmpty() {
+        if (isEmpty()) throw new NoSuchElementException("the bst is empty!");
+    }
+
+    // return the size of subtree rooted at node
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.n;
+    }
+
+    // a node with key, val and the given subtrees, rotated if they are out of balance
+    // the subtrees must have been balanced before one insertion or deletion
+    private static <Key, Value> Node<Key, Value> balance(Key key, Value val,
+                                                         Node<Key, Value> left, Node<Key, Value> right) {
+        int sl = size(left);
+        int sr = size(right);
+        if (sl + sr <= 1) return new Node<>(key, val, left, right);
+        if (sr > DELTA * sl) {
+            // right side too heavy, rotate left
+            Node<Key, Value> rl = right.left;
+            Node<Key, Value> rr = right.right;
+            if (size(rl) < RATIO * size(rr)) {
+                return new Node<>(right.key, right.val, new Node<>(key, val, left, rl), rr);
+            }
+            return new Node<>(rl.key, rl.val,
+                new Node<>(key, val, left, rl.left),
+                new Node<>(right.key, right.val, rl.right, rr));
+        }
+        if (sl > DELTA * sr) {
+            // left side too heavy, rotate right
+            Node<Key, Value> ll = left.left;
+            Node<Key, Value> lr = left.right;
+            if (size(lr) < RATIO * size(ll)) {
+                return new Node<>(left.key, left.val, ll, new Node<>(key, val, lr, right));
+            }
+            return new Node<>(lr.key, lr.val,
+                new Node<>(left.key, left.val, ll, lr.left),
+                new Node<>(key, val, lr.right, right));
+        }
+        return new Node<>(key, val, left, right);
+    }
+
+    // return a version with key value pair put into the table, this if nothing changes
+    public PersistentBST<Key, Value> put(Key key, Value val) {
+        checkKeyNotNull(key);
+        if (val == null) return delete(key);
+        return withRoot(put(key, val, root));
+    }
+
+    // put key value pair into subtree rooted at node
+    // returns the root of the new subtree, node itself if nothing changes
+    private Node<Key, Value> put(Key key, Value val, Node<Key, Value> node) {
+        if (node == null) return new Node<>(key, val, null, null);
+        int cmp = node.key.compareTo(key);
+        if (cmp == 0) {
+            if (node.val == val) return node;
+            return new Node<>(key, val, node.left, node.right);
+        }
+        if (cmp > 0) {
+            Node<Key, Value> left = put(key, val, node.left);
+            if (left == node.left) return node;
+            return balance(node.key, node.val, left, node.right);
+        } else {
+            Node<Key, Value> right = put(key, val, node.right);
+            if (right == node.right) return node;
+            return balance(node.key, node.val, node.left, right);
+        }
+    }
+
+    // return the node associated with the key or null
+    private Node<Key, Value> getNode(Key key) {
+        Node<Key, Value> node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0)       return node;
+            else if (cmp > 0)   node = node.left;
+            else                node = node.right;
+        }
+        return null;
+    }
+
+    // return value associated the the input key
+    public Value get(Key key) {
+        checkKeyNotNull(key);
+        Node<Key, Value> node = getNode(key);
+        return node == null ? null : node.val;
+    }
+
+    // true if contains key
+    public boolean contains(Key key) {
+        checkKeyNotNull(key);
+        return getNode(key) != null;
+    }
+
+    // true if the BST is empty
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    // return the number of elements in the BST
+    public int size() {
+        return size(root);
+    }
+
+    // return the height of the tree, -1 if it is empty
+    public int height() {
+        return height(root);
+    }
+
+    // return the height of subtree rooted at node
+    private int height(Node<Key, Value> node) {
+        if (node == null) return -1;
+        return 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    // return the minimum(leftmost) key
+    public Key min() {
+        checkEmpty();
+        return getMinNode(root).key;
+    }
+
+    // return min node in subtree rooted at node
+    private Node<Key, Value> getMinNode(Node<Key, Value> node) {
+        while (node.left != null) node = node.left;
+        return node;
+    }
+
+    // return the maximum(rightmost) key
+    public Key max() {
+        checkEmpty();
+        return getMaxNode(root).key;
+    }
+
+    // return max node in subtree rooted at node
+    private Node<Key, Value> getMaxNode(Node<Key, Value> node) {
+        while (node.right != null) node = node.right;
+        return node;
+    }
+
+    // return the largest key less than or equal to input
+    public Key floor(Key key) {
+        checkKeyNotNull(key);
+        Key ans = null;
+        Node<Key, Value> node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) return node.key;
+            if (cmp > 0) {
+                node = node.left;
+            } else {
+                ans = node.key;
+                node = node.right;
+            }
+        }
+        return ans;
+    }
+
+    // return the smallest key greater than or equal to input
+    public Key ceiling(Key key) {
+        checkKeyNotNull(key);
+        Key ans = null;
+        Node<Key, Value> node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) return node.key;
+            if (cmp < 0) {
+                node = node.right;
+            } else {
+                ans = node.key;
+                node = node.left;
+            }
+        }
+        return ans;
+    }
+
+    // return the key of rank k
+    public Key select(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IllegalArgumentException("rank is out of bound!");
+        }
+        Node<Key, Value> node = root;
+        while (true) {
+            int left = size(node.left);
+            if (k < left) {
+                node = node.left;
+            } else if (k == left) {
+                return node.key;
+            } else {
+                k -= left + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    // return the number of keys less than key
+    public int rank(Key key) {
+        checkKeyNotNull(key);
+        int rank = 0;
+        Node<Key, Value> node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) return rank + size(node.left);
+            if (cmp > 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    // return a version without the smallest key
+    public PersistentBST<Key, Value> deleteMin() {
+        checkEmpty();
+        return withRoot(deleteMin(root));
+    }
+
+    // delete min in subtree rooted at node and return new root
+    private Node<Key, Value> deleteMin(Node<Key, Value> node) {
+        if (node.left == null) return node.right;
+        return balance(node.key, node.val, deleteMin(node.left), node.right);
+    }
+
+    // return a version without the largest key
+    public PersistentBST<Key, Value> deleteMax() {
+        checkEmpty();
+        return withRoot(deleteMax(root));
+    }
+
+    // delete max in subtree rooted at node and return new root
+    private Node<Key, Value> deleteMax(Node<Key, Value> node) {
+        if (node.right == null) return node.left;
+        return balance(node.key, node.val, node.left, deleteMax(node.right));
+    }
+
+    // return a version without key, this if key is not in the table
+    public PersistentBST<Key, Value> delete(Key key) {
+        checkKeyNotNull(key);
+        return withRoot(delete(key, root));
+    }
+
+    // delete key in subtree rooted at node
+    // returns the root of the new subtree, node itself if key is not in it
+    private Node<Key, Value> delete(Key key, Node<Key, Value> node) {
+        if (node == null) return null;
+        int cmp = node.key.compareTo(key);
+        if (cmp > 0) {
+            Node<Key, Value> left = delete(key, node.left);
+            if (left == node.left) return node;
+            return balance(node.key, node.val, left, node.right);
+        }
+        if (cmp < 0) {
+            Node<Key, Value> right = delete(key, node.right);
+            if (right == node.right) return node;
+            return balance(node.key, node.val, node.left, right);
+        }
+        if (node.left == null) return node.right;
+        if (node.right == null) return node.left;
+        // replace node by its neighbour from the larger subtree
+        if (size(node.left) > size(node.right)) {
+            Node<Key, Value> prev = getMaxNode(node.left);
+            return balance(prev.key, prev.val, deleteMax(node.left), node.right);
+        } else {
+            Node<Key, Value> next = getMinNode(node.right);
+            return balance(next.key, next.val, node.left, deleteMin(node.right));
+        }
+    }
+
+    // returns the number of keys in [lo, hi]
+    public int size(Key lo, Key hi) {
+        checkKeyNotNull(lo);
+        checkKeyNotNull(hi);
+        if (lo.compareTo(hi) > 0) return 0;
+        return rank(hi) - rank(lo) + (contains(hi) ? 1 : 0);
+    }
+
+    // return keys in range in sorted order
+    // the keys are visited lazily, which is safe because the version never changes
+    public Iterable<Key> keys(Key lo, Key hi) {
+        checkKeyNotNull(lo);
+        checkKeyNotNull(hi);
+        return () -> new RangeIterator(lo, hi);
+    }
+
+    // return all keys in sorted order
+    public Iterable<Key> keys() {
+        return () -> new RangeIterator(null, null);
+    }
+
+    // inorder traversal of the keys in [lo, hi] with an explicit stack,
+    // a null bound is open
+    private class RangeIterator implements Iterator<Key> {
+        private final Deque<Node<Key, Value>> stack = new ArrayDeque<>();
+        private final Key hi;
+
+        RangeIterator(Key lo, Key hi) {
+            this.hi = hi;
+            // push the nodes with key >= lo on the path to lo
+            Node<Key, Value> node = root;
+            while (node != null) {
+                if (lo == null || node.key.compareTo(lo) >= 0) {
+                    stack.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && (hi == null || stack.peek().key.compareTo(hi) <= 0);
+        }
+
+        @Override
+        public Key next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Node<Key, Value> node = stack.pop();
+            for (Node<Key, Value> x = node.right; x != null; x = x.left) {
+                stack.push(x);
+            }
+            return node.key;
+        }
+    }
+
+    public static void main(String[] args) {
+        PersistentBST<String, Double> v1 = new PersistentBST<String, Double>()
+            .put("key1", 4.33)
+            .put("key2", 4.00)
+            .put("key5", 1.00);
+        PersistentBST<String, Double> v2 = v1.put("key1", 6.33).delete("key5").put("key3", 4.90);
+        print(v1);
+        print(v2);
+        System.out.println(v2.floor("key4") + " " + v2.ceiling("key0") + " " + v2.rank("key3"));
+        System.out.println();
+
+        // keep a snapshot every 1000 updates while loading keys in sorted order
+        int n = 1_000_000;
+        @SuppressWarnings("unchecked")
+        PersistentBST<Integer, Integer>[] snapshots = (PersistentBST<Integer, Integer>[]) new PersistentBST<?, ?>[n / 1000];
+        PersistentBST<Integer, Integer> st = new PersistentBST<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            st = st.put(i, i);
+            if (i % 1000 == 0) snapshots[i / 1000] = st;
+        }
+        System.out.printf("%d sorted puts in %.3f s, height %d, %d snapshots kept%n",
+            n, (System.nanoTime() - start) / 1e9, st.height(), snapshots.length);
+        System.out.println("snapshot 500 has " + snapshots[500].size() + " keys, max " + snapshots[500].max());
+    }
+
+    private static void print(PersistentBST<String, Double> st) {
+        for (String key : st.keys()) {
+            System.out.println(key + " " + st.get(key));
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,428 @@
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * a symbol table implemented with a left-leaning red-black BST
+ *
+ * same ordered API as BST, but every 3-node of the equivalent 2-3 tree is a
+ * black node with a red left child, and put() and delete() restore that
+ * shape with rotations and color flips on the way back up. every path from
+ * the root to a null link has the same number of black links and no two red
+ * links are in a row, so the height is at most 2 lg N even when the keys
+ * arrive in sorted order, and the recursion depth stays O(log N).
+ */
+public class RedBlackBST<Key extends Comparable<Key>, Value> {
+
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+
+    private class Node {
+        Key key;
+        Value val;
+        Node left;
+        Node right;
+        int n;          // node count of subtree rooted at the node
+        boolean color;  // color of the link from the parent
+
+        public Node(Key key, Value val, int n, boolean color) {
+            this.key = key;
+            this.val = val;
+            this.n = n;
+            this.color = color;
+        }
+    }
+
+    private Node root;
+
+    // empty constructor
+    public RedBlackBST() {
+    }
+
+    // throws exception if key is null
+    private void checkKeyNotNull(Key key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The key is null!");
+        }
+    }
+
+    // throws exception if the bst is empty
+    private void checkEmpty() {
+        if (isEmpty()) throw new NoSuchElementException("the bst is empty!");
+    }
+
+    // true if the link to node is red, null links are black
+    private boolean isRed(Node node) {
+        return node != null && node.color == RED;
+    }
+
+    // return the size of subtree rooted at node
+    private int size(Node node) {
+        return node == null ? 0 : node.n;
+    }
+
+    // make a right-leaning red link lean left
+    private Node rotateLeft(Node node) {
+        Node x = node.right;
+        node.right = x.left;
+        x.left = node;
+        x.color = node.color;
+        node.color = RED;
+        x.n = node.n;
+        node.n = 1 + size(node.left) + size(node.right);
+        return x;
+    }
+
+    // make a left-leaning red link lean right
+    private Node rotateRight(Node node) {
+        Node x = node.left;
+        node.left = x.right;
+        x.right = node;
+        x.color = node.color;
+        node.color = RED;
+        x.n = node.n;
+        node.n = 1 + size(node.left) + size(node.right);
+        return x;
+    }
+
+    // flip the colors of node and its two children
+    private void flipColors(Node node) {
+        node.color = !node.color;
+        node.left.color = !node.left.color;
+        node.right.color = !node.right.color;
+    }
+
+    // restore the left-leaning invariant at node on the way up
+    private Node balance(Node node) {
+        if (isRed(node.right) && !isRed(node.left))     node = rotateLeft(node);
+        if (isRed(node.left) && isRed(node.left.left))  node = rotateRight(node);
+        if (isRed(node.left) && isRed(node.right))      flipColors(node);
+        node.n = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    // assuming node is red and both children are black,
+    // make node.left or one of its children red
+    private Node moveRedLeft(Node node) {
+        flipColors(node);
+        if (isRed(node.right.left)) {
+            node.right = rotateRight(node.right);
+            node = rotateLeft(node);
+            flipColors(node);
+        }
+        return node;
+    }
+
+    // assuming node is red and both children are black,
+    // make node.right or one of its children red
+    private Node moveRedRight(Node node) {
+        flipColors(node);
+        if (isRed(node.left.left)) {
+            node = rotateRight(node);
+            flipColors(node);
+        }
+        return node;
+    }
+
+    // put key value pair into the symbol table
+    public void put(Key key, Value val) {
+        checkKeyNotNull(key);
+        if (val == null) {
+            delete(key);
+            return;
+        }
+        root = put(key, val, root);
+        root.color = BLACK;
+    }
+
+    // put key value pair into subtree rooted at node
+    // returns the root node after insertion
+    private Node put(Key key, Value val, Node node) {
+        if (node == null) return new Node(key, val, 1, RED);
+        int cmp = node.key.compareTo(key);
+        if (cmp == 0)        node.val = val;
+        else if (cmp > 0)    node.left = put(key, val, node.left);
+        else                 node.right = put(key, val, node.right);
+        return balance(node);
+    }
+
+    // return value associated the the input key
+    public Value get(Key key) {
+        checkKeyNotNull(key);
+        Node node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0)       return node.val;
+            else if (cmp > 0)   node = node.left;
+            else                node = node.right;
+        }
+        return null;
+    }
+
+    // true if contains key
+    public boolean contains(Key key) {
+        return get(key) != null;
+    }
+
+    // true if the BST is empty
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    // return the number of elements in the BST
+    public int size() {
+        return size(root);
+    }
+
+    // return the height of the tree, -1 if it is empty
+    public int height() {
+        return height(root);
+    }
+
+    // return the height of subtree rooted at node
+    private int height(Node node) {
+        if (node == null) return -1;
+        return 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    // return the minimum(leftmost) key
+    public Key min() {
+        checkEmpty();
+        return getMinNode(root).key;
+    }
+
+    // return min node in subtree rooted at node
+    private Node getMinNode(Node node) {
+        while (node.left != null) node = node.left;
+        return node;
+    }
+
+    // return the maximum(rightmost) key
+    public Key max() {
+        checkEmpty();
+        Node node = root;
+        while (node.right != null) node = node.right;
+        return node.key;
+    }
+
+    // return the largest key less than or equal to input
+    public Key floor(Key key) {
+        checkKeyNotNull(key);
+        Key ans = null;
+        Node node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) return node.key;
+            if (cmp > 0) {
+                node = node.left;
+            } else {
+                ans = node.key;
+                node = node.right;
+            }
+        }
+        return ans;
+    }
+
+    // return the smallest key greater than or equal to input
+    public Key ceiling(Key key) {
+        checkKeyNotNull(key);
+        Key ans = null;
+        Node node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) return node.key;
+            if (cmp < 0) {
+                node = node.right;
+            } else {
+                ans = node.key;
+                node = node.left;
+            }
+        }
+        return ans;
+    }
+
+    // return the key of rank k
+    public Key select(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IllegalArgumentException("rank is out of bound!");
+        }
+        Node node = root;
+        while (true) {
+            int left = size(node.left);
+            if (k < left) {
+                node = node.left;
+            } else if (k == left) {
+                return node.key;
+            } else {
+                k -= left + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    // return the number of keys less than key
+    public int rank(Key key) {
+        checkKeyNotNull(key);
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) return rank + size(node.left);
+            if (cmp > 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    // delete smallest key
+    public void deleteMin() {
+        checkEmpty();
+        // if both children of root are black, set root to red
+        if (!isRed(root.left) && !isRed(root.right)) root.color = RED;
+        root = deleteMin(root);
+        if (!isEmpty()) root.color = BLACK;
+    }
+
+    // delete min in subtree rooted at node and return new root
+    private Node deleteMin(Node node) {
+        if (node.left == null) return null;
+        if (!isRed(node.left) && !isRed(node.left.left)) node = moveRedLeft(node);
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    // delete largest key
+    public void deleteMax() {
+        checkEmpty();
+        // if both children of root are black, set root to red
+        if (!isRed(root.left) && !isRed(root.right)) root.color = RED;
+        root = deleteMax(root);
+        if (!isEmpty()) root.color = BLACK;
+    }
+
+    // delete max in subtree rooted at node and return new root
+    private Node deleteMax(Node node) {
+        if (isRed(node.left)) node = rotateRight(node);
+        if (node.right == null) return null;
+        if (!isRed(node.right) && !isRed(node.right.left)) node = moveRedRight(node);
+        node.right = deleteMax(node.right);
+        return balance(node);
+    }
+
+    // delete key and its value
+    public void delete(Key key) {
+        checkKeyNotNull(key);
+        if (!contains(key)) return;
+        // if both children of root are black, set root to red
+        if (!isRed(root.left) && !isRed(root.right)) root.color = RED;
+        root = delete(key, root);
+        if (!isEmpty()) root.color = BLACK;
+    }
+
+    // delete key in subtree rooted at node and return new root,
+    // key must be in the subtree
+    private Node delete(Key key, Node node) {
+        if (key.compareTo(node.key) < 0) {
+            if (!isRed(node.left) && !isRed(node.left.left)) node = moveRedLeft(node);
+            node.left = delete(key, node.left);
+        } else {
+            if (isRed(node.left)) node = rotateRight(node);
+            if (key.compareTo(node.key) == 0 && node.right == null) return null;
+            if (!isRed(node.right) && !isRed(node.right.left)) node = moveRedRight(node);
+            if (key.compareTo(node.key) == 0) {
+                // replace node by its successor
+                Node next = getMinNode(node.right);
+                node.key = next.key;
+                node.val = next.val;
+                node.right = deleteMin(node.right);
+            } else {
+                node.right = delete(key, node.right);
+            }
+        }
+        return balance(node);
+    }
+
+    // returns the number of keys in [lo, hi]
+    public int size(Key lo, Key hi) {
+        checkKeyNotNull(lo);
+        checkKeyNotNull(hi);
+        if (lo.compareTo(hi) > 0) return 0;
+        return rank(hi) - rank(lo) + (contains(hi) ? 1 : 0);
+    }
+
+    // return keys in range in sorted order
+    public Iterable<Key> keys(Key lo, Key hi) {
+        checkKeyNotNull(lo);
+        checkKeyNotNull(hi);
+        Queue<Key> q = new LinkedList<>();
+        inorder(root, q, lo, hi);
+        return q;
+    }
+
+    // return all keys in sorted order
+    public Iterable<Key> keys() {
+        if (isEmpty()) return new LinkedList<>();
+        return keys(min(), max());
+    }
+
+    // inorder traversal of the keys in [lo, hi], skipping subtrees outside the range
+    private void inorder(Node node, Queue<Key> q, Key lo, Key hi) {
+        if (node == null) return;
+        int cmplo = lo.compareTo(node.key);
+        int cmphi = hi.compareTo(node.key);
+        if (cmplo < 0) inorder(node.left, q, lo, hi);
+        if (cmplo <= 0 && cmphi >= 0) q.offer(node.key);
+        if (cmphi > 0) inorder(node.right, q, lo, hi);
+    }
+
+    public static void main(String[] args) {
+        RedBlackBST<String, Double> st = new RedBlackBST<>();
+        st.put("key1", 4.33);
+        st.put("key2", 4.00);
+        st.put("key5", 1.00);
+        print(st);
+        System.out.println(st.floor("key0"));
+        System.out.println(st.ceiling("key0"));
+        System.out.println(st.ceiling("key5"));
+
+        st.put("key1", 6.33);
+        print(st);
+
+        st.deleteMax();
+        print(st);
+
+        st.deleteMin();
+        print(st);
+
+        st.put("akey", 4.33);
+        st.put("key3", 4.90);
+        st.put("key5", 1.00);
+        print(st);
+
+        for (String k : st.keys("key0", "key3")) {
+            System.out.println(k + " " + st.get(k));
+        }
+        System.out.println();
+
+        // keys in sorted order, which turn BST into a linked list
+        int n = 1_000_000;
+        RedBlackBST<Integer, Integer> sorted = new RedBlackBST<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            sorted.put(i, i);
+        }
+        System.out.printf("%d sorted puts in %.3f s, height %d (2 lg N = %.1f)%n",
+            n, (System.nanoTime() - start) / 1e9, sorted.height(), 2 * Math.log(n) / Math.log(2));
+    }
+
+    private static void print(RedBlackBST<String, Double> st) {
+        for (String key : st.keys()) {
+            System.out.println(key + " " + st.get(key));
+        }
+        System.out.println();
+    }
+}
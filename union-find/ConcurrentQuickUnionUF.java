@@ -0,0 +1,124 @@
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * a thread-safe, lock-free union-find
+ *
+ * roots are linked with compareAndSet, and find() does path halving with CAS
+ * so no call ever takes a lock. instead of sizes, every element has a fixed
+ * pseudo-random priority and a root is always linked under a root of higher
+ * priority (randomized linking). priorities therefore strictly increase along
+ * every path, which keeps the forest acyclic under any interleaving and gives
+ * expected logarithmic tree height.
+ */
+public class ConcurrentQuickUnionUF {
+
+    private final AtomicIntegerArray parents;
+    private final AtomicInteger count;
+
+    public ConcurrentQuickUnionUF(int n) {
+        int[] init = new int[n];
+        for (int i = 0; i < n; i++) {
+            init[i] = i;
+        }
+        parents = new AtomicIntegerArray(init);
+        count = new AtomicInteger(n);
+    }
+
+    public void union(int p, int q) {
+        validate(p);
+        validate(q);
+        while (true) {
+            int proot = find(p);
+            int qroot = find(q);
+            if (proot == qroot) return;
+
+            // link the root with lower priority under the other one
+            if (priority(proot) > priority(qroot)) {
+                int tmp = proot;
+                proot = qroot;
+                qroot = tmp;
+            }
+            // fails if proot stopped being a root in the meantime, so retry
+            if (parents.compareAndSet(proot, proot, qroot)) {
+                count.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    // find with path halving: every visited node is pointed to its grandparent
+    public int find(int p) {
+        validate(p);
+        while (true) {
+            int parent = parents.get(p);
+            if (parent == p) return p;
+            int grand = parents.get(parent);
+            if (parent != grand) {
+                parents.compareAndSet(p, parent, grand);
+            }
+            p = grand;
+        }
+    }
+
+    public boolean isConnected(int p, int q) {
+        validate(p);
+        validate(q);
+        while (true) {
+            int proot = find(p);
+            int qroot = find(q);
+            if (proot == qroot) return true;
+            // proot still being a root means the two were disjoint at this point
+            if (parents.get(proot) == proot) return false;
+        }
+    }
+
+    public int count() {
+        return count.get();
+    }
+
+    // a bijective integer hash, so priorities form a total order without ties
+    private static int priority(int x) {
+        x ^= x >>> 16;
+        x *= 0x85ebca6b;
+        x ^= x >>> 13;
+        x *= 0xc2b2ae35;
+        x ^= x >>> 16;
+        return x;
+    }
+
+    private void validate(int p) {
+        int n = parents.length();
+        if (p < 0 || p >= n) {
+            throw new IllegalArgumentException(p + " is not in range 0 and " + (n - 1));
+        }
+    }
+
+    public static void main(String[] args) {
+        Scanner sc = new Scanner(System.in);
+        int n = sc.nextInt();
+        ConcurrentQuickUnionUF uf = new ConcurrentQuickUnionUF(n);
+        int[] p = new int[16];
+        int[] q = new int[16];
+        int m = 0;
+        while (sc.hasNextInt()) {
+            if (m == p.length) {
+                p = Arrays.copyOf(p, m * 2);
+                q = Arrays.copyOf(q, m * 2);
+            }
+            p[m] = sc.nextInt();
+            q[m] = sc.nextInt();
+            m++;
+        }
+        sc.close();
+
+        // feed the edges from all available cores
+        final int[] ps = p;
+        final int[] qs = q;
+        IntStream.range(0, m).parallel().forEach(i -> uf.union(ps[i], qs[i]));
+        System.out.println("total components: " + uf.count());
+    }
+}
@@ -0,0 +1,214 @@
+import java.util.Scanner;
+
+/**
+ * weighted quick union with path compression over a growing set of elements
+ *
+ * elements are added one at a time with add(). parents and sizes are stored
+ * in fixed chunks of 2^16 ints, so growing allocates a new chunk and at most
+ * doubles the small array of chunk references; existing elements are never
+ * copied.
+ */
+public class DynamicWeightedQuickUnionUF {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private int[][] parents;    // parents[i >> CHUNK_BITS][i & CHUNK_MASK] = parent of i
+    private int[][] size;       // same layout, size of tree rooted in i
+    private int n;              // number of elements
+    private int count;
+
+    public DynamicWeightedQuickUnionUF() {
+        this(0);
+    }
+
+    // starts with n singletons 0 ... n - 1
+    public DynamicWeightedQuickUnionUF(int n) {
+        if (n < 0) throw new IllegalArgumentException("size " + n + " is negative");
+        parents = new int[1][];
+        size = new int[1][];
+        for (int i = 0; i < n; i++) {
+            add();
+        }
+    }
+
+    // adds a new singleton element and returns its id
+    public int add() {
+        if (n == Integer.MAX_VALUE) throw new IllegalStateException("union-find is full");
+        int chunk = n >>> CHUNK_BITS;
+        if (chunk == parents.length) {
+            int[][] newParents = new int[parents.length * 2][];
+            int[][] newSize = new int[size.length * 2][];
+            System.arraycopy(parents, 0, newParents, 0, parents.length);
+            System.arraycopy(size, 0, newSize, 0, size.length);
+            parents = newParents;
+            size = newSize;
+        }
+        if (parents[chunk] == null) {
+            parents[chunk] = new int[CHUNK_SIZE];
+            size[chunk] = new int[CHUNK_SIZE];
+        }
+        int id = n++;
+        parents[chunk][id & CHUNK_MASK] = id;
+        size[chunk][id & CHUNK_MASK] = 1;
+        count++;
+        return id;
+    }
+
+    private int parent(int p) {
+        return parents[p >>> CHUNK_BITS][p & CHUNK_MASK];
+    }
+
+    public void union(int p, int q) {
+        validate(p);
+        validate(q);
+        int proot = find(p);
+        int qroot = find(q);
+        if (proot == qroot) return;
+
+        // connect the smaller tree to the larger tree
+        int[] pchunk = size[proot >>> CHUNK_BITS];
+        int[] qchunk = size[qroot >>> CHUNK_BITS];
+        int psize = pchunk[proot & CHUNK_MASK];
+        int qsize = qchunk[qroot & CHUNK_MASK];
+        if (psize >= qsize) {
+            parents[qroot >>> CHUNK_BITS][qroot & CHUNK_MASK] = proot;
+            pchunk[proot & CHUNK_MASK] = psize + qsize;
+        } else {
+            parents[proot >>> CHUNK_BITS][proot & CHUNK_MASK] = qroot;
+            qchunk[qroot & CHUNK_MASK] = psize + qsize;
+        }
+        count--;
+    }
+
+    public int find(int p) {
+        validate(p);
+        int root = p;
+        while (parent(root) != root) {
+            root = parent(root);
+        }
+        while (parent(p) != p) {
+            int next = parent(p);
+            parents[p >>> CHUNK_BITS][p & CHUNK_MASK] = root;
+            p = next;
+        }
+        return root;
+    }
+
+    public boolean isConnected(int p, int q) {
+        validate(p);
+        validate(q);
+        return find(p) == find(q);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    // returns the number of elements added so far
+    public int elements() {
+        return n;
+    }
+
+    // returns the number of elements in the component containing p
+    public int size(int p) {
+        int root = find(p);
+        return size[root >>> CHUNK_BITS][root & CHUNK_MASK];
+    }
+
+    private void validate(int p) {
+        if (p < 0 || p >= n) {
+            throw new IllegalArgumentException(p + " is not in range 0 and " + (n - 1));
+        }
+    }
+
+    public static void main(String[] args) {
+        Scanner sc = new Scanner(System.in);
+        try (ResponseWriter out = new ResponseWriter(System.in, ResponseWriter.isQuiet(args))) {
+            int n = sc.nextInt();
+            DynamicWeightedQuickUnionUF uf = new DynamicWeightedQuickUnionUF(n);
+            out.println("initialized UF with size " + n);
+            sc.nextLine();
+
+            while (sc.hasNextLine()) {
+                String[] commands = sc.nextLine().split(" ");
+                validateArgs(commands);
+                switch (commands[0]) {
+                    case "union":
+                        int p = Integer.parseInt(commands[1]);
+                        int q = Integer.parseInt(commands[2]);
+                        uf.union(p, q);
+                        out.println("connected " + p + " and " + q);
+                        break;
+                    case "find":
+                        out.println(uf.find(Integer.parseInt(commands[1])));
+                        break;
+                    case "connected":
+                        out.println(uf.isConnected(
+                            Integer.parseInt(commands[1]),
+                            Integer.parseInt(commands[2])));
+                        break;
+                    case "count":
+                        out.println(uf.count());
+                        break;
+                    case "size":
+                        out.println(uf.size(Integer.parseInt(commands[1])));
+                        break;
+                    case "add":
+                        out.println(uf.add());
+                        break;
+                    case "exit":
+                        out.summary(uf.count());
+                        return;
+                    default:
+                        break;
+                }
+                out.endCommand();
+            }
+            out.summary(uf.count());
+            sc.close();
+        }
+    }
+
+    private static void validateArgs(String[] commands) {
+        switch (commands[0]) {
+            case "union":
+                validateIntegers(commands, 2);
+                break;
+            case "find":
+                validateIntegers(commands, 1);
+                break;
+            case "connected":
+                validateIntegers(commands, 2);
+                break;
+            case "count":
+                validateIntegers(commands, 0);
+                break;
+            case "size":
+                validateIntegers(commands, 1);
+                break;
+            case "add":
+                validateIntegers(commands, 0);
+                break;
+            case "exit":
+                break;
+            default:
+                throw new IllegalArgumentException("command not found");
+        }
+    }
+
+    // number = number of integers to validate in the command
+    private static void validateIntegers(String[] commands, int number) {
+        if (commands.length != number + 1) {
+            throw new IllegalArgumentException("invalid argument: size != 3");
+        }
+        for (int i = 0; i < number; i++) {
+            try {
+                Integer.parseInt(commands[1 + i]);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("element " + (i + 1) + " is not an integer!");
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * loads an edge file into a WeightedQuickUnionPathCompression
+ *
+ * the file is memory-mapped and parsed in place, without Scanner or any
+ * per-line String. two formats are supported:
+ *   ascii:  n followed by whitespace separated pairs p q (same as QuickFindUF input)
+ *   binary: big-endian int n followed by int pairs p q (see writeBinary)
+ */
+public class EdgeFileLoader {
+
+    private static final long SEGMENT = 1L << 30;  // bytes mapped at a time, multiple of 8
+
+    private final Path file;
+    private final boolean binary;
+    private WeightedQuickUnionPathCompression uf;
+    private long edges;     // number of pairs read by the last load()
+    private long nanos;     // time taken by the last load()
+
+    public EdgeFileLoader(Path file, boolean binary) {
+        this.file = file;
+        this.binary = binary;
+    }
+
+    // receives the parsed header and pairs
+    private interface EdgeSink {
+        void header(int n);
+        void edge(int p, int q);
+    }
+
+    // parse the file and union every pair, returns the resulting union-find
+    public WeightedQuickUnionPathCompression load() throws IOException {
+        uf = null;
+        edges = 0;
+        long start = System.nanoTime();
+        EdgeSink sink = new EdgeSink() {
+            public void header(int n) {
+                uf = new WeightedQuickUnionPathCompression(n);
+            }
+
+            public void edge(int p, int q) {
+                uf.union(p, q);
+                edges++;
+            }
+        };
+        if (binary) parseBinary(file, sink);
+        else        parseAscii(file, sink);
+        nanos = System.nanoTime() - start;
+        return uf;
+    }
+
+    public long edges() {
+        return edges;
+    }
+
+    public double seconds() {
+        return nanos / 1e9;
+    }
+
+    public double edgesPerSecond() {
+        return nanos == 0 ? 0 : edges / seconds();
+    }
+
+    // convert an ascii edge file to the binary format
+    public static void writeBinary(Path ascii, Path out) throws IOException {
+        try (OutputStream os = Files.newOutputStream(out);
+             DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+            IOException[] error = new IOException[1];
+            parseAscii(ascii, new EdgeSink() {
+                public void header(int n) {
+                    write(n);
+                }
+
+                public void edge(int p, int q) {
+                    write(p);
+                    write(q);
+                }
+
+                private void write(int v) {
+                    if (error[0] != null) return;
+                    try {
+                        dos.writeInt(v);
+                    } catch (IOException e) {
+                        error[0] = e;
+                    }
+                }
+            });
+            if (error[0] != null) throw error[0];
+        }
+    }
+
+    // zero-allocation ascii parser, numbers may span mapped segments
+    private static void parseAscii(Path file, EdgeSink sink) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = ch.size();
+            long value = 0;
+            boolean inNumber = false;
+            int tokens = 0;     // tokens seen so far: n, then p and q alternating
+            int p = 0;
+            for (long pos = 0; pos < length; pos += SEGMENT) {
+                int len = (int) Math.min(SEGMENT, length - pos);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                for (int i = 0; i < len; i++) {
+                    int c = buf.get(i);
+                    if (c >= '0' && c <= '9') {
+                        value = value * 10 + (c - '0');
+                        if (value > Integer.MAX_VALUE) {
+                            throw new IllegalArgumentException("integer overflow at byte " + (pos + i));
+                        }
+                        inNumber = true;
+                    } else if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                        if (!inNumber) continue;
+                        if (tokens == 0)          sink.header((int) value);
+                        else if ((tokens & 1) == 1) p = (int) value;
+                        else                      sink.edge(p, (int) value);
+                        tokens++;
+                        value = 0;
+                        inNumber = false;
+                    } else {
+                        throw new IllegalArgumentException("unexpected character at byte " + (pos + i));
+                    }
+                }
+            }
+            // the last number may not be followed by whitespace
+            if (inNumber) {
+                if (tokens == 0)          sink.header((int) value);
+                else if ((tokens & 1) == 1) throw new IllegalArgumentException("odd number of integers");
+                else                      sink.edge(p, (int) value);
+                tokens++;
+            }
+            if (tokens == 0) throw new IllegalArgumentException("file is empty");
+            if ((tokens & 1) == 0) throw new IllegalArgumentException("odd number of integers");
+        }
+    }
+
+    private static void parseBinary(Path file, EdgeSink sink) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = ch.size();
+            if (length < 4 || (length - 4) % 8 != 0) {
+                throw new IllegalArgumentException("not a binary edge file: " + file);
+            }
+            sink.header(ch.map(FileChannel.MapMode.READ_ONLY, 0, 4).getInt(0));
+            for (long pos = 4; pos < length; pos += SEGMENT) {
+                int len = (int) Math.min(SEGMENT, length - pos);
+                IntBuffer ints = ch.map(FileChannel.MapMode.READ_ONLY, pos, len).asIntBuffer();
+                int m = ints.limit();
+                for (int i = 0; i < m; i += 2) {
+                    sink.edge(ints.get(i), ints.get(i + 1));
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--convert")) {
+            writeBinary(Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
+        boolean binary = args.length == 2 && args[0].equals("--binary");
+        if (args.length != (binary ? 2 : 1)) {
+            throw new IllegalArgumentException(
+                "usage: EdgeFileLoader [--binary] file | EdgeFileLoader --convert ascii binary");
+        }
+        EdgeFileLoader loader = new EdgeFileLoader(Paths.get(args[args.length - 1]), binary);
+        WeightedQuickUnionPathCompression uf = loader.load();
+        System.out.println("total components: " + uf.count());
+        System.out.printf("loaded %d edges in %.3f s (%.0f edges/sec)%n",
+            loader.edges(), loader.seconds(), loader.edgesPerSecond());
+    }
+}
@@ -0,0 +1,222 @@
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * a weighted quick-union with path compression that can list components
+ *
+ * on top of parents and size it keeps a circular linked list of the members
+ * of every component (two lists are spliced in O(1) by swapping the next
+ * links of their roots) and a dense array of the current roots, so members(p)
+ * takes time proportional to the size of the component and components() to
+ * the number of components.
+ *
+ * this costs three more ints per element and a few more writes per union, so
+ * WeightedQuickUnionPathCompression stays the plain two-array version for
+ * callers that never enumerate.
+ */
+public class EnumerableWeightedQuickUnionUF {
+
+    private int[] parents;
+    private int[] size;
+    private int[] next;         // next[i] = next member of the component of i, circular
+    private int[] roots;        // roots[0 .. count - 1] = current roots, in no order
+    private int[] rootIndex;    // rootIndex[r] = position of root r in roots
+    private int count;
+
+    public EnumerableWeightedQuickUnionUF(int n) {
+        parents = new int[n];
+        size = new int[n];
+        next = new int[n];
+        roots = new int[n];
+        rootIndex = new int[n];
+        count = n;
+        for (int i = 0; i < n; i++) {
+            parents[i] = i;
+            size[i] = 1;
+            next[i] = i;
+            roots[i] = i;
+            rootIndex[i] = i;
+        }
+    }
+
+    public void union(int p, int q) {
+        validate(p);
+        validate(q);
+        int proot = find(p);
+        int qroot = find(q);
+        if (proot == qroot) return;
+
+        // connect the smaller tree to the larger tree
+        int child;
+        if (size[proot] >= size[qroot]) {
+            parents[qroot] = proot;
+            size[proot] += size[qroot];
+            child = qroot;
+        } else {
+            parents[proot] = qroot;
+            size[qroot] += size[proot];
+            child = proot;
+        }
+
+        // splice the two member cycles into one
+        int tmp = next[proot];
+        next[proot] = next[qroot];
+        next[qroot] = tmp;
+
+        // child is no longer a root, move the last root into its place
+        int last = roots[count - 1];
+        roots[rootIndex[child]] = last;
+        rootIndex[last] = rootIndex[child];
+        count--;
+    }
+
+    public int find(int p) {
+        validate(p);
+        int root = p;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        while (parents[p] != p) {
+            int next = parents[p];
+            parents[p] = root;
+            p = next;
+        }
+        return root;
+    }
+
+    public boolean isConnected(int p, int q) {
+        validate(p);
+        validate(q);
+        return find(p) == find(q);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int size(int p) {
+        validate(p);
+        return size[find(p)];
+    }
+
+    // returns all elements in the component containing p, starting with p
+    // time is proportional to the size of the component
+    public int[] members(int p) {
+        int[] members = new int[size[find(p)]];
+        int k = 0;
+        int i = p;
+        do {
+            members[k++] = i;
+            i = next[i];
+        } while (i != p);
+        return members;
+    }
+
+    // returns one element (the root) of every component
+    // time is proportional to the number of components
+    public int[] components() {
+        return Arrays.copyOf(roots, count);
+    }
+
+    private void validate(int p) {
+        int n = parents.length;
+        if (p < 0 || p >= n) {
+            throw new IllegalArgumentException(p + " is not in range 0 and " + (n - 1));
+        }
+    }
+
+    public static void main(String[] args) {
+        Scanner sc = new Scanner(System.in);
+        try (ResponseWriter out = new ResponseWriter(System.in, ResponseWriter.isQuiet(args))) {
+            int n = sc.nextInt();
+            EnumerableWeightedQuickUnionUF uf = new EnumerableWeightedQuickUnionUF(n);
+            out.println("initialized UF with size " + n);
+            sc.nextLine();
+
+            while (sc.hasNextLine()) {
+                String[] commands = sc.nextLine().split(" ");
+                validateArgs(commands);
+                switch (commands[0]) {
+                    case "union":
+                        int p = Integer.parseInt(commands[1]);
+                        int q = Integer.parseInt(commands[2]);
+                        uf.union(p, q);
+                        out.println("connected " + p + " and " + q);
+                        break;
+                    case "find":
+                        out.println(uf.find(Integer.parseInt(commands[1])));
+                        break;
+                    case "connected":
+                        out.println(uf.isConnected(
+                            Integer.parseInt(commands[1]),
+                            Integer.parseInt(commands[2])));
+                        break;
+                    case "count":
+                        out.println(uf.count());
+                        break;
+                    case "size":
+                        out.println(uf.size(Integer.parseInt(commands[1])));
+                        break;
+                    case "members":
+                        out.println(Arrays.toString(uf.members(Integer.parseInt(commands[1]))));
+                        break;
+                    case "components":
+                        out.println(Arrays.toString(uf.components()));
+                        break;
+                    case "exit":
+                        out.summary(uf.count());
+                        return;
+                    default:
+                        break;
+                }
+                out.endCommand();
+            }
+            out.summary(uf.count());
+            sc.close();
+        }
+    }
+
+    private static void validateArgs(String[] commands) {
+        switch (commands[0]) {
+            case "union":
+                validateIntegers(commands, 2);
+                break;
+            case "find":
+                validateIntegers(commands, 1);
+                break;
+            case "connected":
+                validateIntegers(commands, 2);
+                break;
+            case "count":
+                validateIntegers(commands, 0);
+                break;
+            case "size":
+                validateIntegers(commands, 1);
+                break;
+            case "members":
+                validateIntegers(commands, 1);
+                break;
+            case "components":
+                validateIntegers(commands, 0);
+                break;
+            case "exit":
+                break;
+            default:
+                throw new IllegalArgumentException("command not found");
+        }
+    }
+
+    // number = number of integers to validate in the command
+    private static void validateIntegers(String[] commands, int number) {
+        if (commands.length != number + 1) {
+            throw new IllegalArgumentException("invalid argument: size != 3");
+        }
+        for (int i = 0; i < number; i++) {
+            try {
+                Integer.parseInt(commands[1 + i]);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("element " + (i + 1) + " is not an integer!");
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+import java.util.Random;
+
+/**
+ * weighted quick union with path compression in one interleaved array
+ *
+ * WeightedQuickUnionPathCompression keeps parents and sizes in two arrays, so
+ * union() touches two cache lines per root. here nodes[2i] is the parent of
+ * i and nodes[2i + 1] the size of the tree rooted in i, so both sit in the
+ * same cache line.
+ *
+ * localityOrder() computes a breadth-first renumbering of the elements from
+ * an edge list. applying it before loading places elements that are linked
+ * together next to each other, which helps when the original ids are
+ * scattered.
+ */
+public class InterleavedWeightedQuickUnionUF {
+
+    private static final int MAX_SIZE = (Integer.MAX_VALUE - 8) / 2;
+
+    private int[] nodes;    // nodes[2i] = parent of i, nodes[2i + 1] = size of tree rooted in i
+    private int count;
+
+    public InterleavedWeightedQuickUnionUF(int n) {
+        if (n < 0 || n > MAX_SIZE) {
+            throw new IllegalArgumentException("size " + n + " is not in range 0 and " + MAX_SIZE);
+        }
+        nodes = new int[2 * n];
+        count = n;
+        for (int i = 0; i < n; i++) {
+            nodes[2 * i] = i;
+            nodes[2 * i + 1] = 1;
+        }
+    }
+
+    public void union(int p, int q) {
+        validate(p);
+        validate(q);
+        int proot = find(p);
+        int qroot = find(q);
+        if (proot == qroot) return;
+
+        // connect the smaller tree to the larger tree
+        int psize = nodes[2 * proot + 1];
+        int qsize = nodes[2 * qroot + 1];
+        if (psize >= qsize) {
+            nodes[2 * qroot] = proot;
+            nodes[2 * proot + 1] = psize + qsize;
+        } else {
+            nodes[2 * proot] = qroot;
+            nodes[2 * qroot + 1] = psize + qsize;
+        }
+        count--;
+    }
+
+    public int find(int p) {
+        validate(p);
+        int root = p;
+        while (nodes[2 * root] != root) {
+            root = nodes[2 * root];
+        }
+        while (nodes[2 * p] != p) {
+            int next = nodes[2 * p];
+            nodes[2 * p] = root;
+            p = next;
+        }
+        return root;
+    }
+
+    public boolean isConnected(int p, int q) {
+        validate(p);
+        validate(q);
+        return find(p) == find(q);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int size(int p) {
+        validate(p);
+        return nodes[2 * p + 1];
+    }
+
+    private void validate(int p) {
+        validate(p, nodes.length / 2);
+    }
+
+    private static void validate(int p, int n) {
+        if (p < 0 || p >= n) {
+            throw new IllegalArgumentException(p + " is not in range 0 and " + (n - 1));
+        }
+    }
+
+    // returns order with order[old id] = new id, numbering elements in
+    // breadth-first order of the graph given by the edges (p[i], q[i])
+    public static int[] localityOrder(int n, int[] p, int[] q) {
+        if (p.length != q.length) {
+            throw new IllegalArgumentException("p and q have different lengths");
+        }
+        if (n < 0) throw new IllegalArgumentException("size " + n + " is negative");
+        for (int i = 0; i < p.length; i++) {
+            validate(p[i], n);
+            validate(q[i], n);
+        }
+        // adjacency lists in compressed form: neighbours of v are adj[start[v] .. start[v + 1] - 1]
+        int[] start = new int[n + 1];
+        for (int i = 0; i < p.length; i++) {
+            start[p[i] + 1]++;
+            start[q[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            start[v + 1] += start[v];
+        }
+        int[] adj = new int[start[n]];
+        int[] fill = new int[n];
+        for (int i = 0; i < p.length; i++) {
+            adj[start[p[i]] + fill[p[i]]++] = q[i];
+            adj[start[q[i]] + fill[q[i]]++] = p[i];
+        }
+
+        // the queue doubles as the list of vertices in visiting order
+        int[] order = new int[n];
+        int[] queue = new int[n];
+        boolean[] visited = new boolean[n];
+        int tail = 0;
+        for (int s = 0; s < n; s++) {
+            if (visited[s]) continue;
+            visited[s] = true;
+            int head = tail;
+            queue[tail++] = s;
+            while (head < tail) {
+                int v = queue[head];
+                order[v] = head++;
+                for (int k = start[v]; k < start[v + 1]; k++) {
+                    int w = adj[k];
+                    if (!visited[w]) {
+                        visited[w] = true;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    // replaces every id in ids by order[id]
+    public static void renumber(int[] order, int[] ids) {
+        for (int id : ids) {
+            validate(id, order.length);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = order[ids[i]];
+        }
+    }
+
+    // compares the layouts on a graph that is local in a hidden order but
+    // has scattered ids. run one layout per process under perf stat to
+    // compare cache misses:  perf stat -e cache-misses java InterleavedWeightedQuickUnionUF separate
+    public static void main(String[] args) {
+        String layout = args.length > 0 ? args[0] : "all";
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        int m = 2 * n;
+
+        // hidden[i] is the scattered id of the i-th element of the local order
+        Random random = new Random(42);
+        int[] hidden = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = random.nextInt(i + 1);
+            hidden[i] = hidden[j];
+            hidden[j] = i;
+        }
+        int[] p = new int[m];
+        int[] q = new int[m];
+        for (int i = 0; i < m; i++) {
+            int a = random.nextInt(n);
+            int b = Math.min(n - 1, a + 1 + random.nextInt(16));
+            p[i] = hidden[a];
+            q[i] = hidden[b];
+        }
+
+        if (layout.equals("separate") || layout.equals("all")) {
+            long start = System.nanoTime();
+            SeparateArrays uf = new SeparateArrays(n);
+            for (int i = 0; i < m; i++) {
+                uf.union(p[i], q[i]);
+            }
+            report("separate arrays", start, m, uf.count);
+        }
+        if (layout.equals("interleaved") || layout.equals("all")) {
+            long start = System.nanoTime();
+            InterleavedWeightedQuickUnionUF uf = new InterleavedWeightedQuickUnionUF(n);
+            for (int i = 0; i < m; i++) {
+                uf.union(p[i], q[i]);
+            }
+            report("interleaved", start, m, uf.count());
+        }
+        if (layout.equals("renumbered") || layout.equals("all")) {
+            long start = System.nanoTime();
+            int[] order = localityOrder(n, p, q);
+            int[] rp = p.clone();
+            int[] rq = q.clone();
+            renumber(order, rp);
+            renumber(order, rq);
+            System.out.printf("%-24s %8.3f s%n", "renumbering", (System.nanoTime() - start) / 1e9);
+            start = System.nanoTime();
+            InterleavedWeightedQuickUnionUF uf = new InterleavedWeightedQuickUnionUF(n);
+            for (int i = 0; i < m; i++) {
+                uf.union(rp[i], rq[i]);
+            }
+            report("interleaved, renumbered", start, m, uf.count());
+        }
+    }
+
+    // the baseline: the same algorithm as above with parent[] and size[] in
+    // two arrays and nothing else, so that only the layout differs
+    private static class SeparateArrays {
+        private final int[] parent;
+        private final int[] size;
+        private int count;
+
+        SeparateArrays(int n) {
+            parent = new int[n];
+            size = new int[n];
+            count = n;
+            for (int i = 0; i < n; i++) {
+                parent[i] = i;
+                size[i] = 1;
+            }
+        }
+
+        void union(int p, int q) {
+            validate(p, parent.length);
+            validate(q, parent.length);
+            int proot = find(p);
+            int qroot = find(q);
+            if (proot == qroot) return;
+            if (size[proot] >= size[qroot]) {
+                parent[qroot] = proot;
+                size[proot] += size[qroot];
+            } else {
+                parent[proot] = qroot;
+                size[qroot] += size[proot];
+            }
+            count--;
+        }
+
+        int find(int p) {
+            int root = p;
+            while (parent[root] != root) {
+                root = parent[root];
+            }
+            while (parent[p] != p) {
+                int next = parent[p];
+                parent[p] = root;
+                p = next;
+            }
+            return root;
+        }
+    }
+
+    private static void report(String name, long start, int m, int count) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-24s %8.3f s %14.0f edges/sec  %d components%n", name, seconds, m / seconds, count);
+    }
+}
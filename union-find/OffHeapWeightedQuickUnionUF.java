@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * weighted quick union with path compression over long element ids
+ *
+ * the state lives off-heap, in direct ByteBuffers or in a memory-mapped file,
+ * so it is neither bounded by int array indexing nor scanned by the GC.
+ * elements are split into segments of 2^27 longs (1 GiB) and each element
+ * takes a single long: its parent, or the negated size of its tree if it is
+ * a root.
+ */
+public class OffHeapWeightedQuickUnionUF {
+
+    private static final int SEGMENT_BITS = 27;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;  // longs per segment
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final LongBuffer[] segments;
+    private final long n;
+    private long count;
+
+    // allocates the state in direct buffers
+    public OffHeapWeightedQuickUnionUF(long n) {
+        this.n = checkSize(n);
+        this.count = n;
+        this.segments = new LongBuffer[segmentCount(n)];
+        for (int s = 0; s < segments.length; s++) {
+            segments[s] = ByteBuffer.allocateDirect(segmentBytes(s)).asLongBuffer();
+        }
+        reset();
+    }
+
+    // maps the state from a new file, which must not exist yet
+    public OffHeapWeightedQuickUnionUF(long n, Path file) throws IOException {
+        this.n = checkSize(n);
+        this.count = n;
+        this.segments = new LongBuffer[segmentCount(n)];
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int s = 0; s < segments.length; s++) {
+                long offset = ((long) s << SEGMENT_BITS) * Long.BYTES;
+                segments[s] = ch.map(FileChannel.MapMode.READ_WRITE, offset, segmentBytes(s)).asLongBuffer();
+            }
+        }
+        reset();
+    }
+
+    private static long checkSize(long n) {
+        if (n < 0) throw new IllegalArgumentException("size " + n + " is negative");
+        return n;
+    }
+
+    private static int segmentCount(long n) {
+        return (int) ((n + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+    }
+
+    // bytes needed by segment s
+    private int segmentBytes(int s) {
+        long longs = Math.min(SEGMENT_SIZE, n - ((long) s << SEGMENT_BITS));
+        return (int) (longs * Long.BYTES);
+    }
+
+    // every element becomes a root of size 1
+    private void reset() {
+        for (LongBuffer segment : segments) {
+            for (int i = 0; i < segment.limit(); i++) {
+                segment.put(i, -1);
+            }
+        }
+    }
+
+    private long get(long i) {
+        return segments[(int) (i >>> SEGMENT_BITS)].get((int) (i & SEGMENT_MASK));
+    }
+
+    private void set(long i, long value) {
+        segments[(int) (i >>> SEGMENT_BITS)].put((int) (i & SEGMENT_MASK), value);
+    }
+
+    public void union(long p, long q) {
+        validate(p);
+        validate(q);
+        long proot = find(p);
+        long qroot = find(q);
+        if (proot == qroot) return;
+
+        // connect the smaller tree to the larger tree, sizes are negative
+        long psize = get(proot);
+        long qsize = get(qroot);
+        if (psize <= qsize) {
+            set(qroot, proot);
+            set(proot, psize + qsize);
+        } else {
+            set(proot, qroot);
+            set(qroot, psize + qsize);
+        }
+        count--;
+    }
+
+    public long find(long p) {
+        validate(p);
+        long root = p;
+        long parent;
+        while ((parent = get(root)) >= 0) {
+            root = parent;
+        }
+        while ((parent = get(p)) >= 0) {
+            set(p, root);
+            p = parent;
+        }
+        return root;
+    }
+
+    public boolean isConnected(long p, long q) {
+        validate(p);
+        validate(q);
+        return find(p) == find(q);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    // returns the number of elements in the component containing p
+    public long size(long p) {
+        return -get(find(p));
+    }
+
+    private void validate(long p) {
+        if (p < 0 || p >= n) {
+            throw new IllegalArgumentException(p + " is not in range 0 and " + (n - 1));
+        }
+    }
+
+    // usage: OffHeapWeightedQuickUnionUF [n], e.g. 3000000000 to go past the int range
+    public static void main(String[] args) {
+        long n = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000L;
+        if (n < 1) {
+            throw new IllegalArgumentException("usage: OffHeapWeightedQuickUnionUF [n] with n >= 1");
+        }
+        OffHeapWeightedQuickUnionUF uf = new OffHeapWeightedQuickUnionUF(n);
+        System.out.println("initialized UF with size " + n);
+
+        // chain every element of the last segment to its neighbour
+        long start = System.nanoTime();
+        long first = Math.max(0, n - SEGMENT_SIZE);
+        for (long i = first; i + 1 < n; i++) {
+            uf.union(i, i + 1);
+        }
+        System.out.printf("%d unions in %.3f s%n", n - 1 - first, (System.nanoTime() - start) / 1e9);
+        System.out.println("total components: " + uf.count());
+        System.out.println("size of " + (n - 1) + ": " + uf.size(n - 1));
+    }
+}
@@ -0,0 +1,185 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * monte-carlo estimate of the percolation threshold of an n-by-n grid
+ *
+ * each trial opens sites in random order until a virtual top site, connected
+ * to every open site of the first row, is connected to a virtual bottom site
+ * connected to every open site of the last row. the fraction of open sites
+ * at that point is the trial's threshold.
+ *
+ * independent trials run in parallel on a fixed thread pool, and a failed
+ * trial makes run() throw. every worker owns one
+ * WeightedQuickUnionPathCompression and site arrays that are reset between
+ * trials instead of reallocated. trial t always uses the random seed
+ * seed + t, so results do not depend on the number of threads.
+ */
+public class PercolationSimulator {
+
+    private static final double CONFIDENCE_95 = 1.96;
+
+    private final int n;
+    private final int trials;
+    private final int threads;
+    private final long seed;
+    private final double[] thresholds;
+    private long nanos;
+
+    public PercolationSimulator(int n, int trials, int threads, long seed) {
+        if (n <= 0) throw new IllegalArgumentException("grid size must be positive");
+        if (trials <= 1) throw new IllegalArgumentException("at least two trials are needed");
+        if (threads <= 0) throw new IllegalArgumentException("thread count must be positive");
+        if ((long) n * n + 2 > Integer.MAX_VALUE) throw new IllegalArgumentException("grid is too large");
+        this.n = n;
+        this.trials = trials;
+        this.threads = threads;
+        this.seed = seed;
+        this.thresholds = new double[trials];
+    }
+
+    // runs all trials, returns this for chaining. an exception thrown by a
+    // trial stops the remaining workers and is rethrown here
+    public PercolationSimulator run() throws InterruptedException {
+        long start = System.nanoTime();
+        AtomicInteger nextTrial = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            workers.add(() -> {
+                try {
+                    Grid grid = new Grid(n);
+                    for (int t = nextTrial.getAndIncrement(); t < trials; t = nextTrial.getAndIncrement()) {
+                        thresholds[t] = grid.trial(new SplittableRandom(seed + t));
+                    }
+                    return null;
+                } catch (RuntimeException | Error e) {
+                    nextTrial.set(trials);  // the other workers pick no new trials
+                    throw e;
+                }
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> worker : pool.invokeAll(workers)) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    if (cause instanceof Error) throw (Error) cause;
+                    throw new IllegalStateException("trial failed", cause);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        nanos = System.nanoTime() - start;
+        return this;
+    }
+
+    // the per-thread state of one trial
+    private static class Grid {
+        private final int n;
+        private final int top;      // virtual top site
+        private final int bottom;   // virtual bottom site
+        private final WeightedQuickUnionPathCompression uf;
+        private final boolean[] open;
+        private final int[] order;  // the sites, shuffled lazily during a trial
+
+        Grid(int n) {
+            this.n = n;
+            this.top = n * n;
+            this.bottom = n * n + 1;
+            this.uf = new WeightedQuickUnionPathCompression(n * n + 2);
+            this.open = new boolean[n * n];
+            this.order = new int[n * n];
+        }
+
+        // returns the fraction of sites open when the grid first percolates
+        double trial(SplittableRandom random) {
+            uf.reset();
+            Arrays.fill(open, false);
+            int sites = n * n;
+            for (int i = 0; i < sites; i++) {
+                order[i] = i;
+            }
+            for (int k = 0; k < sites; k++) {
+                // the next site is a uniform pick among the closed ones
+                int j = k + random.nextInt(sites - k);
+                int site = order[j];
+                order[j] = order[k];
+                order[k] = site;
+
+                openSite(site);
+                if (uf.isConnected(top, bottom)) return (double) (k + 1) / sites;
+            }
+            throw new AssertionError("a fully open grid always percolates");
+        }
+
+        private void openSite(int site) {
+            open[site] = true;
+            int row = site / n;
+            int col = site % n;
+            if (row == 0)     uf.union(site, top);
+            if (row == n - 1) uf.union(site, bottom);
+            if (row > 0 && open[site - n])     uf.union(site, site - n);
+            if (row < n - 1 && open[site + n]) uf.union(site, site + n);
+            if (col > 0 && open[site - 1])     uf.union(site, site - 1);
+            if (col < n - 1 && open[site + 1]) uf.union(site, site + 1);
+        }
+    }
+
+    public double mean() {
+        double sum = 0;
+        for (double x : thresholds) {
+            sum += x;
+        }
+        return sum / trials;
+    }
+
+    // sample standard deviation of the thresholds
+    public double stddev() {
+        double mean = mean();
+        double sum = 0;
+        for (double x : thresholds) {
+            sum += (x - mean) * (x - mean);
+        }
+        return Math.sqrt(sum / (trials - 1));
+    }
+
+    // low endpoint of the 95% confidence interval
+    public double confidenceLo() {
+        return mean() - CONFIDENCE_95 * stddev() / Math.sqrt(trials);
+    }
+
+    // high endpoint of the 95% confidence interval
+    public double confidenceHi() {
+        return mean() + CONFIDENCE_95 * stddev() / Math.sqrt(trials);
+    }
+
+    public double seconds() {
+        return nanos / 1e9;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("usage: PercolationSimulator n trials [threads]");
+        }
+        int n = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        PercolationSimulator sim = new PercolationSimulator(n, trials, threads, 42).run();
+        System.out.println("mean                    = " + sim.mean());
+        System.out.println("stddev                  = " + sim.stddev());
+        System.out.println("95% confidence interval = [" + sim.confidenceLo() + ", " + sim.confidenceHi() + "]");
+        System.out.printf("%d trials on %d threads in %.3f s%n", trials, threads, sim.seconds());
+    }
+}
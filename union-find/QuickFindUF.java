@@ -22,7 +22,7 @@ public class QuickFindUF {
 
         // assign all elements in p to group q
         int oldId = id[p];
-        for (int i = 0; i < this.count(); i++) {
+        for (int i = 0; i < id.length; i++) {
             if (id[i] == oldId) {
                 id[i] = id[q];
             }
@@ -58,16 +58,21 @@ public class QuickFindUF {
 
     public static void main(String[] args) {
         Scanner sc = new Scanner(System.in);
-        int n = sc.nextInt();
-        QuickFindUF uf = new QuickFindUF(n);
-        while (sc.hasNextInt()) {
-            int p = sc.nextInt();
-            int q = sc.nextInt();
-            if (uf.isConnected(p, q)) continue;
-            uf.union(p, q);
-            System.out.println("connected " + p + " and " + q);
+        try (ResponseWriter out = new ResponseWriter(System.in, ResponseWriter.isQuiet(args))) {
+            int n = sc.nextInt();
+            QuickFindUF uf = new QuickFindUF(n);
+            while (sc.hasNextInt()) {
+                int p = sc.nextInt();
+                int q = sc.nextInt();
+                if (!uf.isConnected(p, q)) {
+                    uf.union(p, q);
+                    out.println("connected " + p + " and " + q);
+                }
+                out.endCommand();
+            }
+            out.println("total components: " + uf.count());
+            out.summary(uf.count());
+            sc.close();
         }
-        System.out.println("total components: " + uf.count());
-        sc.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+import java.util.Scanner;
+
+/**
+ * weighted quick union by rank with path compression
+ *
+ * same behaviour as WeightedQuickUnionPathCompression at about 5 bytes per
+ * element instead of 8: ranks never exceed log2(n) <= 31 so they are kept in
+ * a byte[], and the parent slot of a root, which would otherwise point to
+ * itself, holds the negated size of its tree. size(p) therefore needs no
+ * extra array.
+ */
+public class QuickUnionByRankUF {
+
+    private int[] parents;  // parents[i] = parent of i, or -size if i is a root
+    private byte[] rank;    // rank[i] = upper bound on the height of tree rooted in i
+    private int count;
+
+    public QuickUnionByRankUF(int n) {
+        parents = new int[n];
+        rank = new byte[n];
+        count = n;
+        for (int i = 0; i < n; i++) {
+            parents[i] = -1;
+        }
+    }
+
+    public void union(int p, int q) {
+        validate(p);
+        validate(q);
+        int proot = find(p);
+        int qroot = find(q);
+        if (proot == qroot) return;
+
+        // connect the lower ranked tree to the higher ranked tree
+        if (rank[proot] < rank[qroot]) {
+            int tmp = proot;
+            proot = qroot;
+            qroot = tmp;
+        } else if (rank[proot] == rank[qroot]) {
+            rank[proot]++;
+        }
+        parents[proot] += parents[qroot];
+        parents[qroot] = proot;
+        count--;
+    }
+
+    public int find(int p) {
+        validate(p);
+        int root = p;
+        while (parents[root] >= 0) {
+            root = parents[root];
+        }
+        while (parents[p] >= 0) {
+            int next = parents[p];
+            parents[p] = root;
+            p = next;
+        }
+        return root;
+    }
+
+    public boolean isConnected(int p, int q) {
+        validate(p);
+        validate(q);
+        return find(p) == find(q);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    // returns the number of elements in the component containing p
+    public int size(int p) {
+        return -parents[find(p)];
+    }
+
+    private void validate(int p) {
+        int n = parents.length;
+        if (p < 0 || p >= n) {
+            throw new IllegalArgumentException(p + " is not in range 0 and " + (n - 1));
+        }
+    }
+
+    public static void main(String[] args) {
+        Scanner sc = new Scanner(System.in);
+        try (ResponseWriter out = new ResponseWriter(System.in, ResponseWriter.isQuiet(args))) {
+            int n = sc.nextInt();
+            QuickUnionByRankUF uf = new QuickUnionByRankUF(n);
+            out.println("initialized UF with size " + n);
+            sc.nextLine();
+
+            while (sc.hasNextLine()) {
+                String[] commands = sc.nextLine().split(" ");
+                validateArgs(commands);
+                switch (commands[0]) {
+                    case "union":
+                        int p = Integer.parseInt(commands[1]);
+                        int q = Integer.parseInt(commands[2]);
+                        uf.union(p, q);
+                        out.println("connected " + p + " and " + q);
+                        break;
+                    case "find":
+                        out.println(uf.find(Integer.parseInt(commands[1])));
+                        break;
+                    case "connected":
+                        out.println(uf.isConnected(
+                            Integer.parseInt(commands[1]),
+                            Integer.parseInt(commands[2])));
+                        break;
+                    case "count":
+                        out.println(uf.count());
+                        break;
+                    case "size":
+                        out.println(uf.size(Integer.parseInt(commands[1])));
+                        break;
+                    case "exit":
+                        out.summary(uf.count());
+                        return;
+                    default:
+                        break;
+                }
+                out.endCommand();
+            }
+            out.summary(uf.count());
+            sc.close();
+        }
+    }
+
+    private static void validateArgs(String[] commands) {
+        switch (commands[0]) {
+            case "union":
+                validateIntegers(commands, 2);
+                break;
+            case "find":
+                validateIntegers(commands, 1);
+                break;
+            case "connected":
+                validateIntegers(commands, 2);
+                break;
+            case "count":
+                validateIntegers(commands, 0);
+                break;
+            case "size":
+                validateIntegers(commands, 1);
+                break;
+            case "exit":
+                break;
+            default:
+                throw new IllegalArgumentException("command not found");
+        }
+    }
+
+    // number = number of integers to validate in the command
+    private static void validateIntegers(String[] commands, int number) {
+        if (commands.length != number + 1) {
+            throw new IllegalArgumentException("invalid argument: size != 3");
+        }
+        for (int i = 0; i < number; i++) {
+            try {
+                Integer.parseInt(commands[1 + i]);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("element " + (i + 1) + " is not an integer!");
+            }
+        }
+    }
+}
@@ -1,9 +1,12 @@
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class QuickUnionUF {
 
     private int[] parents;
     private int count;
+    private UFMetrics metrics;              // null unless enabled
+    private UFMetrics.Recorder recorder;    // this instance's counters in metrics
 
     public QuickUnionUF(int size) {
         parents = new int[size];
@@ -18,16 +21,30 @@ public class QuickUnionUF {
         validate(q);
         int proot = find(p);
         int qroot = find(q);
+        if (recorder != null) recorder.recordUnion(proot != qroot);
         if (proot == qroot) return;
-        parents[p] = qroot;
+        parents[proot] = qroot;
         count--;
     }
 
+    // unions every pair (p[i], q[i]) and returns the number of components
+    // large batches are first reduced to a spanning forest in parallel
+    public int unionAll(int[] p, int[] q) {
+        int[][] forest = SpanningForest.reduce(parents.length, p, q);
+        for (int i = 0; i < forest[0].length; i++) {
+            union(forest[0][i], forest[1][i]);
+        }
+        return count;
+    }
+
     public int find(int p) {
         validate(p);
+        int depth = 0;
         while (parents[p] != p) {
             p = parents[p];
+            depth++;
         }
+        if (recorder != null) recorder.recordFind(depth, 0);
         return p;
     }
 
@@ -41,6 +58,17 @@ public class QuickUnionUF {
         return count;
     }
 
+    // attaches counters to find() and union(), null detaches them
+    public void setMetrics(UFMetrics metrics) {
+        if (this.metrics != null) this.metrics.release(recorder);
+        this.metrics = metrics;
+        this.recorder = metrics == null ? null : metrics.recorder(this);
+    }
+
+    public UFMetrics metrics() {
+        return metrics;
+    }
+
     private void validate(int p) {
         int n = parents.length;
         if (p < 0 || p >= n) {
@@ -50,39 +78,47 @@ public class QuickUnionUF {
 
     public static void main(String[] args) {
         Scanner sc = new Scanner(System.in);
-        int n = sc.nextInt();
-        QuickUnionUF uf = new QuickUnionUF(n);
-        System.out.println("initialized UF with size " + n);
-        sc.nextLine();
-
-        while (sc.hasNextLine()) {
-            String[] commands = sc.nextLine().split(" ");
-            validateArgs(commands);
-            switch (commands[0]) {
-                case "union":
-                    int p = Integer.parseInt(commands[1]);
-                    int q = Integer.parseInt(commands[2]);
-                    uf.union(p, q);
-                    System.out.println("connected " + p + " and " + q);
-                    break;
-                case "find":
-                    System.out.println(uf.find(Integer.parseInt(commands[1])));
-                    break;
-                case "connected":
-                    System.out.println(uf.isConnected(
-                        Integer.parseInt(commands[1]),
-                        Integer.parseInt(commands[2])));
-                    break;
-                case "count":
-                    System.out.println(uf.count());
-                    break;
-                case "exit":
-                    return;
-                default:
-                    break;
+        try (ResponseWriter out = new ResponseWriter(System.in, ResponseWriter.isQuiet(args))) {
+            int n = sc.nextInt();
+            QuickUnionUF uf = new QuickUnionUF(n);
+            if (Arrays.asList(args).contains("--metrics")) uf.setMetrics(new UFMetrics());
+            out.println("initialized UF with size " + n);
+            sc.nextLine();
+
+            while (sc.hasNextLine()) {
+                String[] commands = sc.nextLine().split(" ");
+                validateArgs(commands);
+                switch (commands[0]) {
+                    case "union":
+                        int p = Integer.parseInt(commands[1]);
+                        int q = Integer.parseInt(commands[2]);
+                        uf.union(p, q);
+                        out.println("connected " + p + " and " + q);
+                        break;
+                    case "find":
+                        out.println(uf.find(Integer.parseInt(commands[1])));
+                        break;
+                    case "connected":
+                        out.println(uf.isConnected(
+                            Integer.parseInt(commands[1]),
+                            Integer.parseInt(commands[2])));
+                        break;
+                    case "count":
+                        out.println(uf.count());
+                        break;
+                    case "exit":
+                        if (uf.metrics() != null) out.report(uf.metrics());
+                        out.summary(uf.count());
+                        return;
+                    default:
+                        break;
+                }
+                out.endCommand();
             }
+            if (uf.metrics() != null) out.report(uf.metrics());
+            out.summary(uf.count());
+            sc.close();
         }
-        sc.close();
     }
 
     private static void validateArgs(String[] commands) {
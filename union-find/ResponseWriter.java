@@ -0,0 +1,84 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * buffered output for the union-find command drivers
+ *
+ * System.out is synchronized and flushes on every println. responses are
+ * collected in a 64 KiB buffer instead and flushed once the input that is
+ * already available has been processed, so replaying a file flushes once per
+ * block while interactive use still sees each answer right away.
+ *
+ * in quiet mode (--quiet or -q) responses are dropped and only the final
+ * summary with the component count and timing is printed.
+ *
+ * the drivers open it in a try-with-resources block, so the responses that
+ * were already computed are flushed even when a command throws.
+ */
+class ResponseWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final PrintWriter out;
+    private final InputStream in;
+    private final boolean quiet;
+    private final long start;
+    private long commands;      // number of commands processed
+
+    ResponseWriter(InputStream in, boolean quiet) {
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE), false);
+        this.in = in;
+        this.quiet = quiet;
+        this.start = System.nanoTime();
+    }
+
+    // true if the driver was started with --quiet or -q
+    static boolean isQuiet(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--quiet") || arg.equals("-q")) return true;
+        }
+        return false;
+    }
+
+    // writes a response, dropped in quiet mode
+    void println(Object line) {
+        if (!quiet) out.println(line);
+    }
+
+    // writes a line even in quiet mode
+    void report(Object line) {
+        out.println(line);
+    }
+
+    // marks the end of a command, flushes when no more input is waiting
+    void endCommand() {
+        commands++;
+        if (quiet) return;
+        try {
+            if (in.available() > 0) return;
+        } catch (IOException e) {
+            // unknown, so flush to be safe
+        }
+        out.flush();
+    }
+
+    // prints the summary in quiet mode and flushes everything
+    void summary(int count) {
+        if (quiet) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            out.println("total components: " + count);
+            out.printf("processed %d commands in %.3f s (%.0f commands/sec)%n",
+                commands, seconds, seconds == 0 ? 0 : commands / seconds);
+        }
+        out.flush();
+    }
+
+    // flushes the responses that are still buffered, System.out stays open
+    @Override
+    public void close() {
+        out.flush();
+    }
+}
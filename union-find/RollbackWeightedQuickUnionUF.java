@@ -0,0 +1,231 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ * weighted quick union that can undo unions
+ *
+ * there is no path compression, so every union changes exactly one parent
+ * link and one size, which are recorded on a stack. checkpoint() marks the
+ * current state and rollback() undoes all unions made since the last mark in
+ * time proportional to their number. find() stays O(log n) by weighting.
+ *
+ * by default only unions that merge two components while a checkpoint is
+ * open are recorded, so an instance without open checkpoints uses no memory
+ * beyond its two arrays. an instance created with keepHistory records every
+ * union call, also outside checkpoints and also when it changes nothing, so
+ * that undo() can take back any union in order; its history grows by one
+ * entry per union that is not undone.
+ */
+public class RollbackWeightedQuickUnionUF {
+
+    private int[] parents;
+    private int[] size;
+    private int count;
+    private int[] history;      // linked child root of every recorded union, -1 if nothing changed
+    private int unions;         // number of entries in history
+    private int[] checkpoints;  // history sizes saved by checkpoint()
+    private int marks;          // number of entries in checkpoints
+    private final boolean keepHistory;  // record every union, not only under a checkpoint
+
+    public RollbackWeightedQuickUnionUF(int n) {
+        this(n, false);
+    }
+
+    public RollbackWeightedQuickUnionUF(int n, boolean keepHistory) {
+        this.keepHistory = keepHistory;
+        parents = new int[n];
+        size = new int[n];
+        count = n;
+        history = new int[16];
+        checkpoints = new int[4];
+        for (int i = 0; i < n; i++) {
+            parents[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    public void union(int p, int q) {
+        validate(p);
+        validate(q);
+        int proot = find(p);
+        int qroot = find(q);
+        if (proot == qroot) {
+            if (keepHistory) record(-1);
+            return;
+        }
+
+        // connect the smaller tree to the larger tree
+        if (size[proot] < size[qroot]) {
+            int tmp = proot;
+            proot = qroot;
+            qroot = tmp;
+        }
+        parents[qroot] = proot;
+        size[proot] += size[qroot];
+        if (keepHistory || marks > 0) record(qroot);
+        count--;
+    }
+
+    // pushes the linked child root of a union, -1 if it changed nothing
+    private void record(int child) {
+        if (unions == history.length) history = Arrays.copyOf(history, unions * 2);
+        history[unions++] = child;
+    }
+
+    // undoes the most recent recorded union, see the class comment for
+    // which unions are recorded
+    public void undo() {
+        if (unions == 0) throw new NoSuchElementException("no union to undo");
+        if (marks > 0 && checkpoints[marks - 1] == unions) {
+            throw new IllegalStateException("cannot undo past a checkpoint, use rollback()");
+        }
+        int child = history[--unions];
+        if (child < 0) return;
+        int root = parents[child];
+        size[root] -= size[child];
+        parents[child] = child;
+        count++;
+    }
+
+    // marks the current state for rollback()
+    public void checkpoint() {
+        if (marks == checkpoints.length) checkpoints = Arrays.copyOf(checkpoints, marks * 2);
+        checkpoints[marks++] = unions;
+    }
+
+    // undoes every union since the last checkpoint and removes it
+    public void rollback() {
+        if (marks == 0) throw new NoSuchElementException("no checkpoint to roll back to");
+        int mark = checkpoints[--marks];
+        while (unions > mark) {
+            undo();
+        }
+    }
+
+    public int find(int p) {
+        validate(p);
+        while (parents[p] != p) {
+            p = parents[p];
+        }
+        return p;
+    }
+
+    public boolean isConnected(int p, int q) {
+        validate(p);
+        validate(q);
+        return find(p) == find(q);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    // returns the number of elements in the component containing p
+    public int size(int p) {
+        return size[find(p)];
+    }
+
+    private void validate(int p) {
+        int n = parents.length;
+        if (p < 0 || p >= n) {
+            throw new IllegalArgumentException(p + " is not in range 0 and " + (n - 1));
+        }
+    }
+
+    public static void main(String[] args) {
+        Scanner sc = new Scanner(System.in);
+        try (ResponseWriter out = new ResponseWriter(System.in, ResponseWriter.isQuiet(args))) {
+            int n = sc.nextInt();
+            RollbackWeightedQuickUnionUF uf = new RollbackWeightedQuickUnionUF(n);
+            out.println("initialized UF with size " + n);
+            sc.nextLine();
+
+            while (sc.hasNextLine()) {
+                String[] commands = sc.nextLine().split(" ");
+                validateArgs(commands);
+                switch (commands[0]) {
+                    case "union":
+                        int p = Integer.parseInt(commands[1]);
+                        int q = Integer.parseInt(commands[2]);
+                        uf.union(p, q);
+                        out.println("connected " + p + " and " + q);
+                        break;
+                    case "find":
+                        out.println(uf.find(Integer.parseInt(commands[1])));
+                        break;
+                    case "connected":
+                        out.println(uf.isConnected(
+                            Integer.parseInt(commands[1]),
+                            Integer.parseInt(commands[2])));
+                        break;
+                    case "count":
+                        out.println(uf.count());
+                        break;
+                    case "size":
+                        out.println(uf.size(Integer.parseInt(commands[1])));
+                        break;
+                    case "checkpoint":
+                        uf.checkpoint();
+                        break;
+                    case "rollback":
+                        uf.rollback();
+                        out.println("rolled back to " + uf.count() + " components");
+                        break;
+                    case "exit":
+                        out.summary(uf.count());
+                        return;
+                    default:
+                        break;
+                }
+                out.endCommand();
+            }
+            out.summary(uf.count());
+            sc.close();
+        }
+    }
+
+    private static void validateArgs(String[] commands) {
+        switch (commands[0]) {
+            case "union":
+                validateIntegers(commands, 2);
+                break;
+            case "find":
+                validateIntegers(commands, 1);
+                break;
+            case "connected":
+                validateIntegers(commands, 2);
+                break;
+            case "count":
+                validateIntegers(commands, 0);
+                break;
+            case "size":
+                validateIntegers(commands, 1);
+                break;
+            case "checkpoint":
+                validateIntegers(commands, 0);
+                break;
+            case "rollback":
+                validateIntegers(commands, 0);
+                break;
+            case "exit":
+                break;
+            default:
+                throw new IllegalArgumentException("command not found");
+        }
+    }
+
+    // number = number of integers to validate in the command
+    private static void validateIntegers(String[] commands, int number) {
+        if (commands.length != number + 1) {
+            throw new IllegalArgumentException("invalid argument: size != 3");
+        }
+        for (int i = 0; i < number; i++) {
+            try {
+                Integer.parseInt(commands[1 + i]);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("element " + (i + 1) + " is not an integer!");
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * connectivity over a sliding window of a stream of edges
+ *
+ * answers isConnected() and count() over the last W edges, the last T
+ * nanoseconds of edges, or both. edges leave the window in the order they
+ * arrived, so the window is a queue, and the queue is kept on top of a
+ * RollbackWeightedQuickUnionUF whose undo stack holds the live edges.
+ *
+ * removing the oldest edge uses the queue-undo technique: edges pushed by
+ * add() are of type B, and whenever the oldest edge is not on top of the
+ * stack, a suffix of the stack is undone and re-applied with the oldest
+ * edges (type A) on top. each edge is re-applied O(log W) times amortized,
+ * so an add/expire pair costs O(log W * log n) instead of a rebuild.
+ *
+ * per reporting interval (see stats()) it publishes the number of edges
+ * added, the throughput and the mean and max latency of add().
+ */
+public class SlidingWindowConnectivity {
+
+    private final RollbackWeightedQuickUnionUF uf;
+    private final int maxEdges;     // W, or Integer.MAX_VALUE
+    private final long maxAge;      // T in nanoseconds, or Long.MAX_VALUE
+
+    // the window as a stack, index 0 at the bottom
+    private int[] p;
+    private int[] q;
+    private boolean[] typeA;
+    private int top;        // number of edges on the stack
+    private int typeACount; // number of type A edges on the stack
+
+    // timestamps of the window in arrival order, a circular queue of top entries
+    private long[] times;
+    private int head;
+
+    // per interval metrics
+    private long intervalStart;
+    private long added;
+    private long totalLatency;
+    private long maxLatency;
+
+    // keeps at most maxEdges edges no older than maxAgeNanos
+    public SlidingWindowConnectivity(int n, int maxEdges, long maxAgeNanos) {
+        if (maxEdges <= 0) throw new IllegalArgumentException("window size must be positive");
+        if (maxAgeNanos <= 0) throw new IllegalArgumentException("window length must be positive");
+        this.uf = new RollbackWeightedQuickUnionUF(n, true);
+        this.maxEdges = maxEdges;
+        this.maxAge = maxAgeNanos;
+        this.p = new int[16];
+        this.q = new int[16];
+        this.typeA = new boolean[16];
+        this.times = new long[16];
+        this.intervalStart = System.nanoTime();
+    }
+
+    // keeps the last maxEdges edges
+    public static SlidingWindowConnectivity lastEdges(int n, int maxEdges) {
+        return new SlidingWindowConnectivity(n, maxEdges, Long.MAX_VALUE);
+    }
+
+    // keeps the edges added during the last maxAgeNanos
+    public static SlidingWindowConnectivity lastNanos(int n, long maxAgeNanos) {
+        return new SlidingWindowConnectivity(n, Integer.MAX_VALUE, maxAgeNanos);
+    }
+
+    // adds edge (a, b) at the given timestamp, expiring edges that left the window
+    // timestamps must not decrease
+    public void add(int a, int b, long timestamp) {
+        long start = System.nanoTime();
+        if (top > 0 && timestamp < times[(head + top - 1) % times.length]) {
+            throw new IllegalArgumentException("timestamp " + timestamp + " is older than the last edge");
+        }
+        if (top == times.length) {
+            long[] newTimes = new long[top * 2];
+            for (int i = 0; i < top; i++) {
+                newTimes[i] = times[(head + i) % times.length];
+            }
+            times = newTimes;
+            head = 0;
+        }
+        times[(head + top) % times.length] = timestamp;
+        uf.union(a, b);
+        push(a, b, false);
+        expire(timestamp);
+        if (top > maxEdges) removeOldest();
+
+        long latency = System.nanoTime() - start;
+        added++;
+        totalLatency += latency;
+        maxLatency = Math.max(maxLatency, latency);
+    }
+
+    // drops every edge older than now - T
+    public void expire(long now) {
+        if (maxAge == Long.MAX_VALUE) return;
+        while (top > 0 && now - times[head] > maxAge) {
+            removeOldest();
+        }
+    }
+
+    public boolean isConnected(int a, int b) {
+        return uf.isConnected(a, b);
+    }
+
+    public int count() {
+        return uf.count();
+    }
+
+    // number of edges in the window
+    public int edges() {
+        return top;
+    }
+
+    // metrics of the interval since the previous call, then starts a new interval:
+    // {edges added, edges/sec, mean add() latency ns, max add() latency ns}
+    public double[] stats() {
+        long now = System.nanoTime();
+        double seconds = (now - intervalStart) / 1e9;
+        double[] stats = {
+            added,
+            seconds == 0 ? 0 : added / seconds,
+            added == 0 ? 0 : (double) totalLatency / added,
+            maxLatency
+        };
+        intervalStart = now;
+        added = 0;
+        totalLatency = 0;
+        maxLatency = 0;
+        return stats;
+    }
+
+    private void push(int a, int b, boolean isA) {
+        if (top == p.length) {
+            p = Arrays.copyOf(p, top * 2);
+            q = Arrays.copyOf(q, top * 2);
+            typeA = Arrays.copyOf(typeA, top * 2);
+        }
+        p[top] = a;
+        q[top] = b;
+        typeA[top] = isA;
+        if (isA) typeACount++;
+        top++;
+    }
+
+    // removes the oldest edge from the window
+    private void removeOldest() {
+        if (typeACount == 0) {
+            // all edges are type B, oldest at the bottom: reverse the whole stack into type A
+            int m = top;
+            int[] sp = Arrays.copyOf(p, m);
+            int[] sq = Arrays.copyOf(q, m);
+            for (int i = 0; i < m; i++) {
+                uf.undo();
+            }
+            top = 0;
+            for (int i = m - 1; i >= 0; i--) {
+                uf.union(sp[i], sq[i]);
+                push(sp[i], sq[i], true);
+            }
+        } else if (!typeA[top - 1]) {
+            // pop until as many A as B are popped or no A is left, then put the A back on top
+            int popA = 0;
+            int popB = 0;
+            int start = top;
+            do {
+                start--;
+                if (typeA[start]) popA++;
+                else              popB++;
+            } while (popA < popB && popA < typeACount);
+
+            int m = top - start;
+            int[] sp = Arrays.copyOfRange(p, start, top);
+            int[] sq = Arrays.copyOfRange(q, start, top);
+            boolean[] sa = Arrays.copyOfRange(typeA, start, top);
+            for (int i = 0; i < m; i++) {
+                uf.undo();
+            }
+            top = start;
+            typeACount -= popA;
+            for (int i = 0; i < m; i++) {
+                if (!sa[i]) {
+                    uf.union(sp[i], sq[i]);
+                    push(sp[i], sq[i], false);
+                }
+            }
+            for (int i = 0; i < m; i++) {
+                if (sa[i]) {
+                    uf.union(sp[i], sq[i]);
+                    push(sp[i], sq[i], true);
+                }
+            }
+        }
+        // the oldest edge is now the type A edge on top
+        uf.undo();
+        top--;
+        typeACount--;
+        head = (head + 1) % times.length;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("usage: SlidingWindowConnectivity W < n followed by pairs");
+        }
+        int w = Integer.parseInt(args[0]);
+        Scanner sc = new Scanner(System.in);
+        int n = sc.nextInt();
+        SlidingWindowConnectivity window = SlidingWindowConnectivity.lastEdges(n, w);
+        long edges = 0;
+        while (sc.hasNextInt()) {
+            window.add(sc.nextInt(), sc.nextInt(), edges++);
+            if (edges % w == 0) {
+                double[] stats = window.stats();
+                System.out.printf("window ending at edge %d: %d components, %.0f edges/sec, "
+                        + "mean latency %.0f ns, max latency %.0f ns%n",
+                    edges, window.count(), stats[1], stats[2], stats[3]);
+            }
+        }
+        sc.close();
+        System.out.println("total components: " + window.count());
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * reduces a batch of edges to a spanning forest in parallel
+ *
+ * the batch is split into chunks on a ForkJoinPool, each chunk builds its own
+ * partial forest (the edges that actually merged two components), and pairs of
+ * forests are merged the same way. the result has at most n - 1 edges and the
+ * same connectivity as the batch, so applying it to a union-find costs O(n)
+ * instead of O(number of edges).
+ *
+ * every chunk allocates one int[n], so batches are only split when they have
+ * enough edges per chunk to pay for that.
+ */
+final class SpanningForest {
+
+    private static final int THRESHOLD = 1 << 16;   // minimum edges per chunk
+
+    private SpanningForest() {
+    }
+
+    // returns {p', q'} with the same connectivity as {p, q}
+    // small batches are returned unchanged
+    static int[][] reduce(int n, int[] p, int[] q) {
+        if (p.length != q.length) {
+            throw new IllegalArgumentException("p and q have different lengths");
+        }
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int chunk = Math.max(THRESHOLD, Math.max(n, (p.length + parallelism - 1) / parallelism));
+        if (parallelism < 2 || p.length <= chunk) {
+            return new int[][]{p, q};
+        }
+        return ForkJoinPool.commonPool().invoke(new Task(n, p, q, 0, p.length, chunk));
+    }
+
+    private static class Task extends RecursiveTask<int[][]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int n;
+        private final int[] p;
+        private final int[] q;
+        private final int lo;
+        private final int hi;
+        private final int chunk;
+
+        Task(int n, int[] p, int[] q, int lo, int hi, int chunk) {
+            this.n = n;
+            this.p = p;
+            this.q = q;
+            this.lo = lo;
+            this.hi = hi;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected int[][] compute() {
+            if (hi - lo <= chunk) {
+                return forest(n, p, q, lo, hi);
+            }
+            int mid = lo + (hi - lo) / 2;
+            Task left = new Task(n, p, q, lo, mid, chunk);
+            left.fork();
+            int[][] right = new Task(n, p, q, mid, hi, chunk).compute();
+            return merge(n, left.join(), right);
+        }
+    }
+
+    // the forest of the union of two forests
+    private static int[][] merge(int n, int[][] a, int[][] b) {
+        int la = a[0].length;
+        int lb = b[0].length;
+        int[] p = Arrays.copyOf(a[0], la + lb);
+        int[] q = Arrays.copyOf(a[1], la + lb);
+        System.arraycopy(b[0], 0, p, la, lb);
+        System.arraycopy(b[1], 0, q, la, lb);
+        return forest(n, p, q, 0, la + lb);
+    }
+
+    // keeps the edges in [lo, hi) that connect two different components
+    private static int[][] forest(int n, int[] p, int[] q, int lo, int hi) {
+        // parents[i] < 0 means i is a root of a tree with -parents[i] nodes
+        int[] parents = new int[n];
+        Arrays.fill(parents, -1);
+        int[] fp = new int[Math.min(hi - lo, n)];
+        int[] fq = new int[fp.length];
+        int m = 0;
+        for (int i = lo; i < hi; i++) {
+            validate(p[i], n);
+            validate(q[i], n);
+            int proot = find(parents, p[i]);
+            int qroot = find(parents, q[i]);
+            if (proot == qroot) continue;
+            if (parents[proot] <= parents[qroot]) {
+                parents[proot] += parents[qroot];
+                parents[qroot] = proot;
+            } else {
+                parents[qroot] += parents[proot];
+                parents[proot] = qroot;
+            }
+            fp[m] = p[i];
+            fq[m] = q[i];
+            m++;
+        }
+        return new int[][]{Arrays.copyOf(fp, m), Arrays.copyOf(fq, m)};
+    }
+
+    // find with path halving
+    private static int find(int[] parents, int p) {
+        while (parents[p] >= 0) {
+            int parent = parents[p];
+            if (parents[parent] >= 0) {
+                parents[p] = parents[parent];
+            }
+            p = parents[p];
+        }
+        return p;
+    }
+
+    private static void validate(int p, int n) {
+        if (p < 0 || p >= n) {
+            throw new IllegalArgumentException(p + " is not in range 0 and " + (n - 1));
+        }
+    }
+}
@@ -0,0 +1,287 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * micro-benchmark comparing the union-find implementations
+ *
+ * every run applies n unions followed by n isConnected queries drawn from
+ * one edge distribution:
+ *   random:   uniform random pairs
+ *   chain:    union(0, i) for i = 1 .. n - 1, which builds a chain in an
+ *             unweighted tree and walks it on every call
+ *   powerlaw: mostly local edges plus edges into a few heavy hubs
+ *
+ * every implementation runs in a JVM of its own, started by this one with
+ * the same class path and JVM options. in a shared JVM the call sites in
+ * run() would see every implementation in turn, and once they turn
+ * megamorphic the later implementations are measured with virtual calls
+ * the earlier ones did not pay, so the results would depend on the order.
+ *
+ * every implementation is warmed up for at least WARMUP runs and
+ * WARMUP_OPS operations or WARMUP_NANOS, whichever ends first, so that the
+ * JIT has compiled the loops even for small n. each measured iteration then
+ * repeats the workload on fresh instances (created before the clock starts)
+ * for about SAMPLE_NANOS, and the mean and best throughput of the
+ * iterations are reported, together with the allocation rate minus what the
+ * measurement itself allocates.
+ *
+ * usage: java -Xms1g UFBenchmark [n1 n2 ...]
+ *        java -Xms1g UFBenchmark -impl <implementation> [n1 n2 ...]
+ *        (runs one implementation in this JVM)
+ */
+public class UFBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final long WARMUP_OPS = 10_000_000;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long SAMPLE_NANOS = 100_000_000L;
+    private static final int ITERATIONS = 5;
+    private static final int QUADRATIC_LIMIT = 20_000;  // largest n for O(n^2) implementations
+
+    // common view over the union-find classes, which share no interface
+    private interface UF {
+        void union(int p, int q);
+        boolean isConnected(int p, int q);
+    }
+
+    private interface Factory {
+        UF create(int n);
+    }
+
+    private static final String[] NAMES = {
+        "QuickFindUF", "QuickUnionUF", "WeightedQuickUnionUF", "WeightedQuickUnionPathCompression",
+        "WeightedQuickUnionPathCompression+metrics", "InterleavedWeightedQuickUnionUF"
+    };
+
+    private static final Factory[] FACTORIES = {
+        UFBenchmark::quickFind, UFBenchmark::quickUnion, UFBenchmark::weighted, UFBenchmark::pathCompression,
+        UFBenchmark::pathCompressionWithMetrics, UFBenchmark::interleaved
+    };
+
+    // true if the implementation is quadratic: QuickFindUF relabels on every
+    // union and QuickUnionUF builds degenerate trees
+    private static final boolean[] QUADRATIC = {true, true, false, false, false, false};
+
+    private static final String[] DISTRIBUTIONS = {"random", "chain", "powerlaw"};
+
+    private static UF quickFind(int n) {
+        QuickFindUF uf = new QuickFindUF(n);
+        return new UF() {
+            public void union(int p, int q) { uf.union(p, q); }
+            public boolean isConnected(int p, int q) { return uf.isConnected(p, q); }
+        };
+    }
+
+    private static UF quickUnion(int n) {
+        QuickUnionUF uf = new QuickUnionUF(n);
+        return new UF() {
+            public void union(int p, int q) { uf.union(p, q); }
+            public boolean isConnected(int p, int q) { return uf.isConnected(p, q); }
+        };
+    }
+
+    private static UF weighted(int n) {
+        WeightedQuickUnionUF uf = new WeightedQuickUnionUF(n);
+        return new UF() {
+            public void union(int p, int q) { uf.union(p, q); }
+            public boolean isConnected(int p, int q) { return uf.isConnected(p, q); }
+        };
+    }
+
+    private static UF pathCompression(int n) {
+        WeightedQuickUnionPathCompression uf = new WeightedQuickUnionPathCompression(n);
+        return new UF() {
+            public void union(int p, int q) { uf.union(p, q); }
+            public boolean isConnected(int p, int q) { return uf.isConnected(p, q); }
+        };
+    }
+
+    // same as pathCompression, to measure the overhead of UFMetrics
+    private static UF pathCompressionWithMetrics(int n) {
+        WeightedQuickUnionPathCompression uf = new WeightedQuickUnionPathCompression(n);
+        uf.setMetrics(new UFMetrics());
+        return new UF() {
+            public void union(int p, int q) { uf.union(p, q); }
+            public boolean isConnected(int p, int q) { return uf.isConnected(p, q); }
+        };
+    }
+
+    private static UF interleaved(int n) {
+        InterleavedWeightedQuickUnionUF uf = new InterleavedWeightedQuickUnionUF(n);
+        return new UF() {
+            public void union(int p, int q) { uf.union(p, q); }
+            public boolean isConnected(int p, int q) { return uf.isConnected(p, q); }
+        };
+    }
+
+    // returns {p, q} with n unions followed by n queries
+    private static int[][] workload(String distribution, int n, long seed) {
+        Random random = new Random(seed);
+        int[] p = new int[2 * n];
+        int[] q = new int[2 * n];
+        for (int i = 0; i < 2 * n; i++) {
+            switch (distribution) {
+                case "random":
+                    p[i] = random.nextInt(n);
+                    q[i] = random.nextInt(n);
+                    break;
+                case "chain":
+                    p[i] = 0;
+                    q[i] = i < n ? i : random.nextInt(n);
+                    break;
+                case "powerlaw":
+                    p[i] = random.nextInt(n);
+                    if (random.nextInt(4) == 0) {
+                        // hubs: cubing a uniform value favours small ids
+                        double u = random.nextDouble();
+                        q[i] = (int) (u * u * u * n);
+                    } else {
+                        q[i] = Math.floorMod(p[i] + random.nextInt(64) - 32, n);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown distribution " + distribution);
+            }
+        }
+        return new int[][]{p, q};
+    }
+
+    // applies the workload and returns the elapsed nanoseconds
+    private static long run(UF uf, int[][] workload) {
+        int[] p = workload[0];
+        int[] q = workload[1];
+        int n = p.length / 2;
+        int connected = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            uf.union(p[i], q[i]);
+        }
+        for (int i = n; i < p.length; i++) {
+            if (uf.isConnected(p[i], q[i])) connected++;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (connected < 0) throw new AssertionError();  // keeps the queries alive
+        return elapsed;
+    }
+
+    // bytes allocated by calling allocatedBytes() twice, subtracted from each sample
+    private static long allocationOverhead() {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long before = allocatedBytes();
+            min = Math.min(min, allocatedBytes() - before);
+        }
+        return min;
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    // runs every implementation in a JVM of its own, one after the other
+    private static void fork(String[] args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(UFBenchmark.class.getName());
+        command.add("-impl");
+        command.add(null);  // the implementation, set below
+        command.addAll(Arrays.asList(args));
+        int impl = command.indexOf(null);
+
+        printHeader();
+        for (String name : NAMES) {
+            command.set(impl, name);
+            Process process = new ProcessBuilder(command).inheritIO().start();
+            int status = process.waitFor();
+            if (status != 0) throw new IllegalStateException(name + " exited with status " + status);
+        }
+    }
+
+    private static void printHeader() {
+        System.out.printf("%-42s %-9s %9s %14s %14s %12s%n",
+            "implementation", "edges", "n", "mean ops/s", "best ops/s", "alloc MB/s");
+    }
+
+    // measures implementation k on every distribution and size
+    private static void measure(int k, int[] sizes) {
+        long overhead = allocationOverhead();
+        for (int d = 0; d < DISTRIBUTIONS.length; d++) {
+            for (int n : sizes) {
+                if (QUADRATIC[k] && n > QUADRATIC_LIMIT) {
+                    System.out.printf("%-42s %-9s %9d %14s%n", NAMES[k], DISTRIBUTIONS[d], n, "skipped");
+                    continue;
+                }
+                int[][] workload = workload(DISTRIBUTIONS[d], n, 42);
+                // warm up, then size the samples from the last warmup run
+                long warmupStart = System.nanoTime();
+                long warmupOps = 0;
+                long lastRun = 0;
+                for (int i = 0; i < WARMUP
+                        || (warmupOps < WARMUP_OPS && System.nanoTime() - warmupStart < WARMUP_NANOS); i++) {
+                    lastRun = run(FACTORIES[k].create(n), workload);
+                    warmupOps += 2L * n;
+                }
+                int reps = (int) Math.max(1, Math.min(10_000, SAMPLE_NANOS / Math.max(1, lastRun)));
+
+                long total = 0;
+                long best = Long.MAX_VALUE;
+                long allocated = 0;
+                UF[] instances = new UF[reps];
+                for (int i = 0; i < ITERATIONS; i++) {
+                    for (int r = 0; r < reps; r++) {
+                        instances[r] = FACTORIES[k].create(n);
+                    }
+                    long before = allocatedBytes();
+                    long elapsed = 0;
+                    for (int r = 0; r < reps; r++) {
+                        elapsed += run(instances[r], workload);
+                    }
+                    allocated += Math.max(0, allocatedBytes() - before - overhead);
+                    total += elapsed;
+                    best = Math.min(best, elapsed);
+                }
+                long ops = 2L * n * reps;
+                System.out.printf("%-42s %-9s %9d %14.0f %14.0f %12.1f%n",
+                    NAMES[k], DISTRIBUTIONS[d], n,
+                    ops * ITERATIONS / (total / 1e9),
+                    ops / (best / 1e9),
+                    allocated / 1e6 / (total / 1e9));
+            }
+        }
+        System.out.flush();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int k = -1;
+        if (args.length > 1 && args[0].equals("-impl")) {
+            k = Arrays.asList(NAMES).indexOf(args[1]);
+            if (k < 0) throw new IllegalArgumentException("unknown implementation " + args[1]);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        int[] sizes = {1_000, 10_000, 100_000, 1_000_000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        if (k < 0) {
+            fork(args);
+        } else {
+            measure(k, sizes);
+        }
+    }
+}
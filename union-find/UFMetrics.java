@@ -0,0 +1,186 @@
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * optional hot-path counters for the union-find classes
+ *
+ * records a histogram of find() path lengths, the number of parent pointers
+ * rewritten by path compression, the deepest path seen and the number of
+ * union calls and actual merges.
+ *
+ * the union-find classes are single-threaded, so each instance attached with
+ * setMetrics() gets its own Recorder of plain long counters and the hot path
+ * never touches shared memory. the getters sum over all recorders, so one
+ * UFMetrics can watch union-finds owned by different threads; values read
+ * while they are being updated may be slightly stale.
+ *
+ * the union-finds are held weakly: once one is garbage collected or attached
+ * to other metrics, the counts of its recorder are added to retained totals
+ * and the recorder is dropped. a UFMetrics shared by many short-lived
+ * union-finds does not grow without bound, and its counts only go down on
+ * reset().
+ */
+public class UFMetrics {
+
+    public static final int BUCKETS = 33;   // path lengths 0 .. 31, the last bucket holds 32 and more
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final ReferenceQueue<Object> cleared = new ReferenceQueue<>();
+    private final Recorder retired = new Recorder();    // counts of the dropped recorders
+
+    // a recorder and a weak reference to the union-find it counts for
+    private static final class Entry extends WeakReference<Object> {
+        private final Recorder recorder;
+        private boolean dropped;
+
+        Entry(Object owner, Recorder recorder, ReferenceQueue<Object> queue) {
+            super(owner, queue);
+            this.recorder = recorder;
+        }
+    }
+
+    // the counters of one union-find instance
+    static final class Recorder {
+        private final long[] pathLengths = new long[BUCKETS];
+        private long rewritten;
+        private long maxDepth;
+        private long unions;
+        private long merges;
+
+        // records a find() that followed depth links and rewrote some of them
+        void recordFind(int depth, int rewrittenLinks) {
+            pathLengths[Math.min(depth, BUCKETS - 1)]++;
+            rewritten += rewrittenLinks;
+            if (depth > maxDepth) maxDepth = depth;
+        }
+
+        // records a union() call, merged is false if p and q were already connected
+        void recordUnion(boolean merged) {
+            unions++;
+            if (merged) merges++;
+        }
+
+        // adds the counts of other to this recorder
+        private void add(Recorder other) {
+            for (int i = 0; i < BUCKETS; i++) {
+                pathLengths[i] += other.pathLengths[i];
+            }
+            rewritten += other.rewritten;
+            maxDepth = Math.max(maxDepth, other.maxDepth);
+            unions += other.unions;
+            merges += other.merges;
+        }
+
+        private void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                pathLengths[i] = 0;
+            }
+            rewritten = 0;
+            maxDepth = 0;
+            unions = 0;
+            merges = 0;
+        }
+    }
+
+    // a new recorder for owner, whose counts are included in this instance
+    synchronized Recorder recorder(Object owner) {
+        purge();
+        Recorder recorder = new Recorder();
+        entries.add(new Entry(owner, recorder, cleared));
+        return recorder;
+    }
+
+    // retires the recorder of a union-find that was detached from this instance
+    synchronized void release(Recorder recorder) {
+        for (Entry entry : entries) {
+            if (entry.recorder == recorder) retire(entry);
+        }
+        purge();
+    }
+
+    // retires the recorders whose union-find was garbage collected and
+    // removes all retired entries
+    private void purge() {
+        for (Reference<?> ref = cleared.poll(); ref != null; ref = cleared.poll()) {
+            retire((Entry) ref);
+        }
+        entries.removeIf(entry -> entry.dropped);
+    }
+
+    // adds the counts of entry to the retained totals
+    private void retire(Entry entry) {
+        if (entry.dropped) return;
+        retired.add(entry.recorder);
+        entry.dropped = true;
+    }
+
+    // the retained totals plus the counts of all live recorders
+    private synchronized Recorder total() {
+        purge();
+        Recorder total = new Recorder();
+        total.add(retired);
+        for (Entry entry : entries) {
+            total.add(entry.recorder);
+        }
+        return total;
+    }
+
+    public long finds() {
+        long finds = 0;
+        for (long bucket : pathLengthHistogram()) {
+            finds += bucket;
+        }
+        return finds;
+    }
+
+    // histogram[d] = number of finds with path length d, the last bucket is open
+    public long[] pathLengthHistogram() {
+        return total().pathLengths;
+    }
+
+    public long rewritten() {
+        return total().rewritten;
+    }
+
+    // the longest path any find() has followed, a lower bound on the tree height
+    public long maxDepth() {
+        return total().maxDepth;
+    }
+
+    public long unions() {
+        return total().unions;
+    }
+
+    public long merges() {
+        return total().merges;
+    }
+
+    // clears all counters, should not race with updates
+    public synchronized void reset() {
+        purge();
+        retired.reset();
+        for (Entry entry : entries) {
+            entry.recorder.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("finds: ").append(finds())
+          .append(", rewritten links: ").append(rewritten())
+          .append(", max depth: ").append(maxDepth())
+          .append(", unions: ").append(unions())
+          .append(", merges: ").append(merges())
+          .append("\npath lengths:");
+        long[] histogram = pathLengthHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (histogram[i] == 0) continue;
+            sb.append(' ').append(i).append(i == BUCKETS - 1 ? "+=" : "=").append(histogram[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,145 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Scanner;
+
+/**
+ * a WeightedQuickUnionPathCompression persisted in a directory
+ *
+ * the directory holds a snapshot written by save() and an append-only log of
+ * the unions made since that snapshot. opening the store reads the snapshot
+ * back, which copies and checks both arrays in O(n), and replays only the
+ * log, and checkpoint() writes a new snapshot and empties the log. unions
+ * are idempotent, so a crash between the two steps only means some unions
+ * get replayed twice.
+ */
+public class UnionFindStore implements Closeable {
+
+    private static final String SNAPSHOT = "uf.snapshot";
+    private static final String LOG = "uf.log";
+    private static final int RECORD_BYTES = 2 * Integer.BYTES;  // one logged union: p, q
+
+    private final Path dir;
+    private final WeightedQuickUnionPathCompression uf;
+    private FileChannel logChannel;
+    private DataOutputStream log;
+    private long logged;    // number of unions in the log
+
+    // opens the store in dir, starting from n singletons if there is no snapshot yet
+    // throws exception if the snapshot holds a different number of elements
+    public UnionFindStore(Path dir, int n) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        Path snapshot = dir.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            uf = WeightedQuickUnionPathCompression.load(snapshot);
+            if (uf.elements() != n) {
+                throw new IllegalArgumentException("snapshot in " + dir + " has " + uf.elements()
+                    + " elements, not " + n);
+            }
+        } else {
+            uf = new WeightedQuickUnionPathCompression(n);
+        }
+        replay();
+        openLog(false);
+    }
+
+    // applies the logged unions and cuts off a partially written last record
+    private void replay() throws IOException {
+        Path path = dir.resolve(LOG);
+        if (!Files.exists(path)) return;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long records = ch.size() / RECORD_BYTES;
+            long length = records * RECORD_BYTES;
+            long blockRecords = Integer.MAX_VALUE / RECORD_BYTES;
+            for (long r = 0; r < records; r += blockRecords) {
+                long len = Math.min(blockRecords, records - r) * RECORD_BYTES;
+                IntBuffer ints = ch.map(FileChannel.MapMode.READ_ONLY, r * RECORD_BYTES, len).asIntBuffer();
+                for (int i = 0; i < ints.limit(); i += 2) {
+                    uf.union(ints.get(i), ints.get(i + 1));
+                }
+            }
+            if (ch.size() != length) ch.truncate(length);
+            logged = records;
+        }
+    }
+
+    private void openLog(boolean truncate) throws IOException {
+        Path path = dir.resolve(LOG);
+        if (truncate) {
+            logChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+            logged = 0;
+        } else {
+            logChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        }
+        log = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(logChannel), 1 << 16));
+    }
+
+    // connects p and q, logging the union if it merged two components
+    public void union(int p, int q) throws IOException {
+        if (uf.isConnected(p, q)) return;
+        uf.union(p, q);
+        log.writeInt(p);
+        log.writeInt(q);
+        logged++;
+    }
+
+    // the current state, changes made through it directly are not logged
+    public WeightedQuickUnionPathCompression uf() {
+        return uf;
+    }
+
+    // number of unions logged since the last snapshot
+    public long logged() {
+        return logged;
+    }
+
+    // pushes buffered log records to disk
+    public void flush() throws IOException {
+        log.flush();
+        logChannel.force(false);
+    }
+
+    // writes a new snapshot and empties the log
+    public void checkpoint() throws IOException {
+        flush();
+        uf.save(dir.resolve(SNAPSHOT));
+        log.close();
+        openLog(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        log.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("usage: UnionFindStore dir n [--checkpoint] < pairs");
+        }
+        boolean checkpoint = args.length > 2 && args[2].equals("--checkpoint");
+        long start = System.nanoTime();
+        try (UnionFindStore store = new UnionFindStore(Paths.get(args[0]), Integer.parseInt(args[1]))) {
+            System.out.printf("recovered in %.3f s, %d unions replayed from log%n",
+                (System.nanoTime() - start) / 1e9, store.logged());
+            Scanner sc = new Scanner(System.in);
+            while (sc.hasNextInt()) {
+                store.union(sc.nextInt(), sc.nextInt());
+            }
+            sc.close();
+            if (checkpoint) store.checkpoint();
+            System.out.println("total components: " + store.uf().count());
+            System.out.println("unions in log: " + store.logged());
+        }
+    }
+}
@@ -1,10 +1,24 @@
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class WeightedQuickUnionPathCompression {
 
+    private static final int MAGIC = 0x55465043;                // snapshot file marker
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;  // magic, n, count
+    private static final int MAP_INTS = 1 << 28;                // ints mapped at a time
+
     private int[] parents;
     private int[] size;
     private int count;
+    private UFMetrics metrics;              // null unless enabled
+    private UFMetrics.Recorder recorder;    // this instance's counters in metrics
 
     public WeightedQuickUnionPathCompression(int n) {
         parents = new int[n];
@@ -16,11 +30,29 @@ public class WeightedQuickUnionPathCompression {
         }
     }
 
+    // puts every element back into its own component, without reallocating
+    public void reset() {
+        int n = parents.length;
+        count = n;
+        for (int i = 0; i < n; i++) {
+            parents[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    // restores a union-find from its arrays, used by load()
+    private WeightedQuickUnionPathCompression(int[] parents, int[] size, int count) {
+        this.parents = parents;
+        this.size = size;
+        this.count = count;
+    }
+
     public void union(int p, int q) {
         validate(p);
         validate(q);
         int proot = find(p);
         int qroot = find(q);
+        if (recorder != null) recorder.recordUnion(proot != qroot);
         if (proot == qroot) return;
 
         // connect the smaller tree to the larger tree
@@ -35,17 +67,31 @@ public class WeightedQuickUnionPathCompression {
     }
 
 
+    // unions every pair (p[i], q[i]) and returns the number of components
+    // large batches are first reduced to a spanning forest in parallel
+    public int unionAll(int[] p, int[] q) {
+        int[][] forest = SpanningForest.reduce(parents.length, p, q);
+        for (int i = 0; i < forest[0].length; i++) {
+            union(forest[0][i], forest[1][i]);
+        }
+        return count;
+    }
+
     public int find(int p) {
         validate(p);
         int root = p;
+        int depth = 0;
         while (parents[root] != root) {
             root = parents[root];
+            depth++;
         }
         while (parents[p] != p) {
             int next = parents[p];
             parents[p] = root;
             p = next;
         }
+        // every link on the path except the last one already pointed to root
+        if (recorder != null) recorder.recordFind(depth, Math.max(depth - 1, 0));
         return root;
     }
 
@@ -59,12 +105,28 @@ public class WeightedQuickUnionPathCompression {
         return count;
     }
 
+    // attaches counters to find() and union(), null detaches them
+    public void setMetrics(UFMetrics metrics) {
+        if (this.metrics != null) this.metrics.release(recorder);
+        this.metrics = metrics;
+        this.recorder = metrics == null ? null : metrics.recorder(this);
+    }
+
+    public UFMetrics metrics() {
+        return metrics;
+    }
+
 
     public int size(int p) {
         validate(p);
         return size[p];
     }
 
+    // returns the number of elements, used by UnionFindStore to check a snapshot
+    int elements() {
+        return parents.length;
+    }
+
     private void validate(int p) {
         int n = parents.length;
         if (p < 0 || p >= n) {
@@ -72,44 +134,124 @@ public class WeightedQuickUnionPathCompression {
         }
     }
 
+    // writes count, parents and size to file, replacing it atomically
+    public void save(Path file) throws IOException {
+        int n = parents.length;
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            IntBuffer header = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES).asIntBuffer();
+            header.put(MAGIC).put(n).put(count);
+            writeInts(ch, HEADER_BYTES, parents);
+            writeInts(ch, HEADER_BYTES + (long) n * Integer.BYTES, size);
+            ch.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // restores the union-find from a file written by save(). the arrays are
+    // copied out of the mapped file, so loading takes O(n) time, and every
+    // entry is checked so that a corrupt snapshot fails here and not in find()
+    public static WeightedQuickUnionPathCompression load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) {
+                throw new IllegalArgumentException("not a union-find snapshot: " + file);
+            }
+            IntBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).asIntBuffer();
+            int magic = header.get();
+            int n = header.get();
+            int count = header.get();
+            if (magic != MAGIC || n < 0 || ch.size() != HEADER_BYTES + 2L * n * Integer.BYTES) {
+                throw new IllegalArgumentException("not a union-find snapshot: " + file);
+            }
+            int[] parents = new int[n];
+            int[] size = new int[n];
+            readInts(ch, HEADER_BYTES, parents);
+            readInts(ch, HEADER_BYTES + (long) n * Integer.BYTES, size);
+            int roots = 0;
+            for (int i = 0; i < n; i++) {
+                if (parents[i] < 0 || parents[i] >= n) {
+                    throw new IllegalArgumentException("corrupt union-find snapshot " + file
+                        + ": parent of " + i + " is " + parents[i]);
+                }
+                if (size[i] <= 0) {
+                    throw new IllegalArgumentException("corrupt union-find snapshot " + file
+                        + ": size of " + i + " is " + size[i]);
+                }
+                if (parents[i] == i) roots++;
+            }
+            if (roots != count) {
+                throw new IllegalArgumentException("corrupt union-find snapshot " + file
+                    + ": " + roots + " roots but a count of " + count);
+            }
+            return new WeightedQuickUnionPathCompression(parents, size, count);
+        }
+    }
+
+    // copies src into the file at offset, one mapped block at a time
+    private static void writeInts(FileChannel ch, long offset, int[] src) throws IOException {
+        for (int i = 0; i < src.length; i += MAP_INTS) {
+            int len = Math.min(MAP_INTS, src.length - i);
+            long pos = offset + (long) i * Integer.BYTES;
+            ch.map(FileChannel.MapMode.READ_WRITE, pos, (long) len * Integer.BYTES).asIntBuffer().put(src, i, len);
+        }
+    }
+
+    // fills dst from the file at offset, one mapped block at a time
+    private static void readInts(FileChannel ch, long offset, int[] dst) throws IOException {
+        for (int i = 0; i < dst.length; i += MAP_INTS) {
+            int len = Math.min(MAP_INTS, dst.length - i);
+            long pos = offset + (long) i * Integer.BYTES;
+            ch.map(FileChannel.MapMode.READ_ONLY, pos, (long) len * Integer.BYTES).asIntBuffer().get(dst, i, len);
+        }
+    }
+
     public static void main(String[] args) {
         Scanner sc = new Scanner(System.in);
-        int n = sc.nextInt();
-        WeightedQuickUnionPathCompression uf = new WeightedQuickUnionPathCompression(n);
-        System.out.println("initialized UF with size " + n);
-        sc.nextLine();
-
-        while (sc.hasNextLine()) {
-            String[] commands = sc.nextLine().split(" ");
-            validateArgs(commands);
-            switch (commands[0]) {
-                case "union":
-                    int p = Integer.parseInt(commands[1]);
-                    int q = Integer.parseInt(commands[2]);
-                    uf.union(p, q);
-                    System.out.println("connected " + p + " and " + q);
-                    break;
-                case "find":
-                    System.out.println(uf.find(Integer.parseInt(commands[1])));
-                    break;
-                case "connected":
-                    System.out.println(uf.isConnected(
-                        Integer.parseInt(commands[1]),
-                        Integer.parseInt(commands[2])));
-                    break;
-                case "count":
-                    System.out.println(uf.count());
-                    break;
-                case "size":
-                    System.out.println(uf.size(Integer.parseInt(commands[1])));
-                    break;
-                case "exit":
-                    return;
-                default:
-                    break;
+        try (ResponseWriter out = new ResponseWriter(System.in, ResponseWriter.isQuiet(args))) {
+            int n = sc.nextInt();
+            WeightedQuickUnionPathCompression uf = new WeightedQuickUnionPathCompression(n);
+            if (Arrays.asList(args).contains("--metrics")) uf.setMetrics(new UFMetrics());
+            out.println("initialized UF with size " + n);
+            sc.nextLine();
+
+            while (sc.hasNextLine()) {
+                String[] commands = sc.nextLine().split(" ");
+                validateArgs(commands);
+                switch (commands[0]) {
+                    case "union":
+                        int p = Integer.parseInt(commands[1]);
+                        int q = Integer.parseInt(commands[2]);
+                        uf.union(p, q);
+                        out.println("connected " + p + " and " + q);
+                        break;
+                    case "find":
+                        out.println(uf.find(Integer.parseInt(commands[1])));
+                        break;
+                    case "connected":
+                        out.println(uf.isConnected(
+                            Integer.parseInt(commands[1]),
+                            Integer.parseInt(commands[2])));
+                        break;
+                    case "count":
+                        out.println(uf.count());
+                        break;
+                    case "size":
+                        out.println(uf.size(Integer.parseInt(commands[1])));
+                        break;
+                    case "exit":
+                        if (uf.metrics() != null) out.report(uf.metrics());
+                        out.summary(uf.count());
+                        return;
+                    default:
+                        break;
+                }
+                out.endCommand();
             }
+            if (uf.metrics() != null) out.report(uf.metrics());
+            out.summary(uf.count());
+            sc.close();
         }
-        sc.close();
     }
 
     private static void validateArgs(String[] commands) {
@@ -128,6 +270,7 @@ public class WeightedQuickUnionPathCompression {
                 break;
             case "size":
                 validateIntegers(commands, 1);
+                break;
             case "exit":
                 break;
             default:
@@ -22,10 +22,28 @@ public class WeightedQuickUnionUF {
         int proot = find(p);
         int qroot = find(q);
         if (proot == qroot) return;
-        parents[proot] = qroot;
+
+        // connect the smaller tree to the larger tree
+        if (size[proot] >= size[qroot]) {
+            parents[qroot] = proot;
+            size[proot] += size[qroot];
+        } else {
+            parents[proot] = qroot;
+            size[qroot] += size[proot];
+        }
         count--;
     }
 
+    // unions every pair (p[i], q[i]) and returns the number of components
+    // large batches are first reduced to a spanning forest in parallel
+    public int unionAll(int[] p, int[] q) {
+        int[][] forest = SpanningForest.reduce(parents.length, p, q);
+        for (int i = 0; i < forest[0].length; i++) {
+            union(forest[0][i], forest[1][i]);
+        }
+        return count;
+    }
+
     public int find(int p) {
         validate(p);
         while (parents[p] != p) {
@@ -53,39 +71,44 @@ public class WeightedQuickUnionUF {
 
     public static void main(String[] args) {
         Scanner sc = new Scanner(System.in);
-        int n = sc.nextInt();
-        WeightedQuickUnionUF uf = new WeightedQuickUnionUF(n);
-        System.out.println("initialized UF with size " + n);
-        sc.nextLine();
+        try (ResponseWriter out = new ResponseWriter(System.in, ResponseWriter.isQuiet(args))) {
+            int n = sc.nextInt();
+            WeightedQuickUnionUF uf = new WeightedQuickUnionUF(n);
+            out.println("initialized UF with size " + n);
+            sc.nextLine();
 
-        while (sc.hasNextLine()) {
-            String[] commands = sc.nextLine().split(" ");
-            validateArgs(commands);
-            switch (commands[0]) {
-                case "union":
-                    int p = Integer.parseInt(commands[1]);
-                    int q = Integer.parseInt(commands[2]);
-                    uf.union(p, q);
-                    System.out.println("connected " + p + " and " + q);
-                    break;
-                case "find":
-                    System.out.println(uf.find(Integer.parseInt(commands[1])));
-                    break;
-                case "connected":
-                    System.out.println(uf.isConnected(
-                        Integer.parseInt(commands[1]),
-                        Integer.parseInt(commands[2])));
-                    break;
-                case "count":
-                    System.out.println(uf.count());
-                    break;
-                case "exit":
-                    return;
-                default:
-                    break;
+            while (sc.hasNextLine()) {
+                String[] commands = sc.nextLine().split(" ");
+                validateArgs(commands);
+                switch (commands[0]) {
+                    case "union":
+                        int p = Integer.parseInt(commands[1]);
+                        int q = Integer.parseInt(commands[2]);
+                        uf.union(p, q);
+                        out.println("connected " + p + " and " + q);
+                        break;
+                    case "find":
+                        out.println(uf.find(Integer.parseInt(commands[1])));
+                        break;
+                    case "connected":
+                        out.println(uf.isConnected(
+                            Integer.parseInt(commands[1]),
+                            Integer.parseInt(commands[2])));
+                        break;
+                    case "count":
+                        out.println(uf.count());
+                        break;
+                    case "exit":
+                        out.summary(uf.count());
+                        return;
+                    default:
+                        break;
+                }
+                out.endCommand();
             }
+            out.summary(uf.count());
+            sc.close();
         }
-        sc.close();
     }
 
     private static void validateArgs(String[] commands) {